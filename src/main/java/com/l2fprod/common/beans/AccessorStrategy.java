@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import java.lang.reflect.Method;
+
+/**
+ * AccessorStrategy. <br>
+ *
+ * Creates the {@link PropertyAccessor} of a property from its methods. A
+ * strategy may compile the methods into direct calls, the accessors are
+ * created once per property and reused for every read and write.
+ *
+ * @see BeanAccessors#setStrategy(AccessorStrategy)
+ */
+public interface AccessorStrategy {
+
+    /**
+     * Create the accessor of a property.
+     *
+     * @param readMethod the read method, null if the property is write only.
+     * @param writeMethod the write method, null if the property is read only.
+     * @return the accessor.
+     */
+    PropertyAccessor createAccessor(Method readMethod, Method writeMethod);
+}
@@ -24,6 +24,7 @@ import java.beans.BeanDescriptor;
 import java.beans.IntrospectionException;
 import java.beans.PropertyDescriptor;
 import java.beans.SimpleBeanInfo;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -39,6 +40,9 @@ public class BaseBeanInfo extends SimpleBeanInfo {
 
     private BeanDescriptor beanDescriptor;
 
+    private ResourceManager resources;
+    private boolean resourcesFound;
+
     private final List<PropertyDescriptor> properties = new ArrayList<PropertyDescriptor>(0);
 
     /**
@@ -68,6 +72,40 @@ public class BaseBeanInfo extends SimpleBeanInfo {
         return ResourceManager.get(getType());
     }
 
+    /**
+     * Find the resource manager of the wrapped type without throwing, through
+     * {@link #getResources()} if a subclass overrides it.
+     *
+     * @return the resource manager or null if there is none.
+     */
+    ResourceManager findResources() {
+        if (!resourcesFound) {
+            resources = lookupResources();
+            resourcesFound = true;
+        }
+        return resources;
+    }
+
+    private ResourceManager lookupResources() {
+        try {
+            if (getClass().getMethod("getResources").getDeclaringClass() == BaseBeanInfo.class) {
+                return ResourceManager.find(getType());
+            }
+        } catch (NoSuchMethodException e) {
+            // public method of this class
+        }
+        try {
+            return getResources();
+        } catch (MissingResourceException e) {
+            return null;
+        }
+    }
+
+    private String findString(String key) {
+        ResourceManager rm = findResources();
+        return rm == null ? null : rm.findString(key);
+    }
+
     @Override
     public BeanDescriptor getBeanDescriptor() {
         if (beanDescriptor == null) {
@@ -95,50 +133,115 @@ public class BaseBeanInfo extends SimpleBeanInfo {
     }
 
     public ExtendedPropertyDescriptor addProperty(String propertyName) {
-        ExtendedPropertyDescriptor descriptor;
         try {
             if (propertyName == null || propertyName.trim().length() == 0) {
                 throw new IntrospectionException("bad property name");
             }
 
-            descriptor = ExtendedPropertyDescriptor
-                    .newPropertyDescriptor(propertyName, getType());
-            DisplayName readannotation = descriptor.getReadMethod() != null ? descriptor.getReadMethod().getAnnotation(DisplayName.class) : null;
-            DisplayName writeannotation = descriptor.getWriteMethod() != null ? descriptor.getWriteMethod().getAnnotation(DisplayName.class) : null;
-            Description readannotationDesc = descriptor.getReadMethod() != null ? descriptor.getReadMethod().getAnnotation(Description.class) : null;
-            Description writeannotationDesc = descriptor.getWriteMethod() != null ? descriptor.getWriteMethod().getAnnotation(Description.class) : null;
-
-            try {
-                if (readannotation != null) {
-                    descriptor.setDisplayName(readannotation.value());
-                } else if (writeannotation != null) {
-                    descriptor.setDisplayName(writeannotation.value());
-                } else {
-                    descriptor.setDisplayName(getResources().getString(propertyName));
-                }
-            } catch (MissingResourceException e) {
-                // ignore, the resource may not be provided
-            }
-            try {
-                if (readannotationDesc != null) {
-                    descriptor.setShortDescription(readannotationDesc.value());
-                } else if (writeannotationDesc != null) {
-                    descriptor.setShortDescription(writeannotationDesc.value());
-                } else {
-                    descriptor.setShortDescription(
-                            getResources().getString(
-                                    propertyName + ".shortDescription"));
-                }
-            } catch (MissingResourceException e) {
-                // ignore, the resource may not be provided
-            }
-            addPropertyDescriptor(descriptor);
-            return descriptor;
+            return addConfigured(ExtendedPropertyDescriptor
+                    .newPropertyDescriptor(propertyName, getType()));
+        } catch (IntrospectionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Add a property whose methods and texts are known in advance, as in the
+     * BeanInfo classes written by {@link BeanInfoProcessor}. The annotations
+     * of the methods are not read.
+     *
+     * @param propertyName the name of the property.
+     * @param getterName the name of the read method.
+     * @param setterName the name of the write method, null if the property is
+     * read only.
+     * @param displayName the display name, null to find it in the resources.
+     * @param shortDescription the description, null to find it in the
+     * resources.
+     * @return the added descriptor.
+     */
+    public ExtendedPropertyDescriptor addProperty(String propertyName, String getterName, String setterName,
+            String displayName, String shortDescription) {
+        try {
+            Method readMethod = getType().getMethod(getterName);
+            Method writeMethod = setterName == null ? null
+                    : getType().getMethod(setterName, readMethod.getReturnType());
+            return addDescribed(new ExtendedPropertyDescriptor(propertyName, readMethod, writeMethod),
+                    displayName, shortDescription);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
         } catch (IntrospectionException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Add a property from a descriptor of the Introspector, without looking
+     * up its methods again.
+     *
+     * @param property the descriptor of the property, with a read method.
+     * @return the added descriptor.
+     */
+    public ExtendedPropertyDescriptor addIntrospectedProperty(PropertyDescriptor property) {
+        try {
+            return addConfigured(ExtendedPropertyDescriptor.newPropertyDescriptor(property));
+        } catch (IntrospectionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Set the display name and description of a descriptor from its
+     * annotations or the resources, then add it.
+     */
+    private ExtendedPropertyDescriptor addConfigured(ExtendedPropertyDescriptor descriptor) {
+        DisplayName readannotation = descriptor.getReadMethod() != null ? descriptor.getReadMethod().getAnnotation(DisplayName.class) : null;
+        DisplayName writeannotation = descriptor.getWriteMethod() != null ? descriptor.getWriteMethod().getAnnotation(DisplayName.class) : null;
+        Description readannotationDesc = descriptor.getReadMethod() != null ? descriptor.getReadMethod().getAnnotation(Description.class) : null;
+        Description writeannotationDesc = descriptor.getWriteMethod() != null ? descriptor.getWriteMethod().getAnnotation(Description.class) : null;
+
+        String displayName = null;
+        if (readannotation != null) {
+            displayName = readannotation.value();
+        } else if (writeannotation != null) {
+            displayName = writeannotation.value();
+        }
+        String shortDescription = null;
+        if (readannotationDesc != null) {
+            shortDescription = readannotationDesc.value();
+        } else if (writeannotationDesc != null) {
+            shortDescription = writeannotationDesc.value();
+        }
+        return addDescribed(descriptor, displayName, shortDescription);
+    }
+
+    /**
+     * Set the display name and description of a descriptor, from the
+     * resources when not given, then add it.
+     */
+    private ExtendedPropertyDescriptor addDescribed(ExtendedPropertyDescriptor descriptor,
+            String displayName, String shortDescription) {
+        String propertyName = descriptor.getName();
+        // the resources may not be provided
+        if (displayName != null) {
+            descriptor.setDisplayName(displayName);
+        } else {
+            String found = findString(propertyName);
+            if (found != null) {
+                descriptor.setDisplayName(found);
+            }
+        }
+        if (shortDescription != null) {
+            descriptor.setShortDescription(shortDescription);
+        } else {
+            String found = findString(propertyName + ".shortDescription");
+            if (found != null) {
+                descriptor.setShortDescription(found);
+            }
+        }
+        addPropertyDescriptor(descriptor);
+        return descriptor;
+    }
+
     /**
      * Removes the first occurrence of the property named
      * <code>propertyName</code>.
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyDescriptor;
+import com.l2fprod.common.util.ClassCache;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * BeanAccessors. <br>
+ *
+ * The read and write methods of the properties of a class, by property name.
+ * The table is built once from the Introspector and cached by class, for as
+ * long as the class exists. The cache does not keep the classes of plugins
+ * alive.
+ *
+ * The {@link PropertyAccessor} of a property is created by the current
+ * {@link AccessorStrategy} on first use. Changing the strategy discards the
+ * cached tables. The <code>addPropertyChangeListener</code> and
+ * <code>removePropertyChangeListener</code> methods of bound beans are called
+ * through accessors of the strategy too.
+ */
+public final class BeanAccessors {
+
+    private static final ClassCache<BeanAccessors> CACHE = new ClassCache<BeanAccessors>() {
+        @Override
+        protected BeanAccessors computeValue(Class<?> type) {
+            return new BeanAccessors(type, strategy);
+        }
+    };
+
+    private static volatile AccessorStrategy strategy = new MethodHandleAccessorStrategy();
+
+    private final Class<?> beanClass;
+    private final AccessorStrategy accessorStrategy;
+    private final Map<String, Method> readMethods;
+    private final Map<String, Method> writeMethods;
+    private final ConcurrentMap<String, PropertyAccessor> accessors;
+    private final PropertyAccessor addListener;
+    private final PropertyAccessor removeListener;
+
+    private BeanAccessors(Class<?> beanClass, AccessorStrategy accessorStrategy) {
+        this.beanClass = beanClass;
+        this.accessorStrategy = accessorStrategy;
+        this.accessors = new ConcurrentHashMap<String, PropertyAccessor>();
+        Map<String, Method> reads = new HashMap<String, Method>();
+        Map<String, Method> writes = new HashMap<String, Method>();
+        try {
+            for (PropertyDescriptor pd : Introspector.getBeanInfo(beanClass).getPropertyDescriptors()) {
+                if (pd.getReadMethod() != null && !reads.containsKey(pd.getName())) {
+                    reads.put(pd.getName(), pd.getReadMethod());
+                }
+                if (pd.getWriteMethod() != null && !writes.containsKey(pd.getName())) {
+                    writes.put(pd.getName(), pd.getWriteMethod());
+                }
+            }
+        } catch (IntrospectionException ex) {
+            Logger.getLogger(BeanAccessors.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        this.readMethods = Collections.unmodifiableMap(reads);
+        this.writeMethods = Collections.unmodifiableMap(writes);
+        Method add = getListenerMethod(beanClass, "addPropertyChangeListener");
+        Method remove = getListenerMethod(beanClass, "removePropertyChangeListener");
+        if (add != null && remove != null) {
+            this.addListener = accessorStrategy.createAccessor(null, add);
+            this.removeListener = accessorStrategy.createAccessor(null, remove);
+        } else {
+            this.addListener = null;
+            this.removeListener = null;
+        }
+    }
+
+    /**
+     * Get the accessors of a class, built on first use. Cheap once built,
+     * callers do not need to keep the table.
+     *
+     * @param beanClass the class.
+     * @return the accessors.
+     */
+    public static BeanAccessors forClass(Class<?> beanClass) {
+        BeanAccessors accessors = CACHE.get(beanClass);
+        if (!accessors.isCurrent()) {
+            // built while the strategy was changing
+            CACHE.remove(beanClass);
+            accessors = CACHE.get(beanClass);
+        }
+        return accessors;
+    }
+
+    /**
+     * @return the strategy creating the property accessors.
+     */
+    public static AccessorStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Set the strategy creating the property accessors, the default one uses
+     * method handles. The tables built with the previous strategy are discarded.
+     *
+     * @param accessorStrategy the strategy.
+     */
+    public static void setStrategy(AccessorStrategy accessorStrategy) {
+        if (accessorStrategy == null) {
+            throw new IllegalArgumentException("No strategy");
+        }
+        synchronized (CACHE) {
+            strategy = accessorStrategy;
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * @return true if the table was built with the current strategy.
+     */
+    public boolean isCurrent() {
+        return accessorStrategy == strategy;
+    }
+
+    /**
+     * @return the class of the accessors.
+     */
+    public Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    /**
+     * Get the read method of a property.
+     *
+     * @param propertyName the name of the property.
+     * @return the method or null if the property is not readable.
+     */
+    public Method getReadMethod(String propertyName) {
+        return readMethods.get(propertyName);
+    }
+
+    /**
+     * Get the write method of a property.
+     *
+     * @param propertyName the name of the property.
+     * @return the method or null if the property is not writable.
+     */
+    public Method getWriteMethod(String propertyName) {
+        return writeMethods.get(propertyName);
+    }
+
+    /**
+     * @return true if the beans of the class have public
+     * <code>addPropertyChangeListener(PropertyChangeListener)</code> and
+     * <code>removePropertyChangeListener(PropertyChangeListener)</code>
+     * methods.
+     */
+    public boolean isBound() {
+        return addListener != null;
+    }
+
+    /**
+     * Add a listener to a bean of the class.
+     *
+     * @param bean the bean.
+     * @param listener the listener.
+     * @throws IllegalAccessException if the method is not accessible.
+     * @throws InvocationTargetException if the method failed.
+     * @throws IllegalStateException if the beans are not bound.
+     */
+    public void addPropertyChangeListener(Object bean, PropertyChangeListener listener)
+            throws IllegalAccessException, InvocationTargetException {
+        if (addListener == null) {
+            throw new IllegalStateException("Not bound: " + beanClass.getName());
+        }
+        addListener.write(bean, listener);
+    }
+
+    /**
+     * Remove a listener from a bean of the class.
+     *
+     * @param bean the bean.
+     * @param listener the listener.
+     * @throws IllegalAccessException if the method is not accessible.
+     * @throws InvocationTargetException if the method failed.
+     * @throws IllegalStateException if the beans are not bound.
+     */
+    public void removePropertyChangeListener(Object bean, PropertyChangeListener listener)
+            throws IllegalAccessException, InvocationTargetException {
+        if (removeListener == null) {
+            throw new IllegalStateException("Not bound: " + beanClass.getName());
+        }
+        removeListener.write(bean, listener);
+    }
+
+    /**
+     * Get the accessor of a property, created once by the strategy of this
+     * table.
+     *
+     * @param propertyName the name of the property.
+     * @return the accessor or null if the property is neither readable nor
+     * writable.
+     */
+    public PropertyAccessor getAccessor(String propertyName) {
+        PropertyAccessor accessor = accessors.get(propertyName);
+        if (accessor == null) {
+            Method readMethod = readMethods.get(propertyName);
+            Method writeMethod = writeMethods.get(propertyName);
+            if (readMethod == null && writeMethod == null) {
+                return null;
+            }
+            accessor = accessorStrategy.createAccessor(readMethod, writeMethod);
+            PropertyAccessor existing = accessors.putIfAbsent(propertyName, accessor);
+            if (existing != null) {
+                accessor = existing;
+            }
+        }
+        return accessor;
+    }
+
+    private static Method getListenerMethod(Class<?> beanClass, String name) {
+        try {
+            return beanClass.getMethod(name, PropertyChangeListener.class);
+        } catch (NoSuchMethodException ex) {
+            return null;
+        } catch (SecurityException ex) {
+            return null;
+        }
+    }
+}
@@ -15,32 +15,97 @@
  */
 package com.l2fprod.common.beans;
 
+import com.l2fprod.common.propertysheet.AbstractProperty;
+import com.l2fprod.common.propertysheet.MixedValue;
 import com.l2fprod.common.propertysheet.Property;
 import com.l2fprod.common.propertysheet.PropertySheetPanel;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.beans.BeanInfo;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyDescriptor;
 import java.beans.PropertyVetoException;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import javax.swing.Timer;
 import javax.swing.UIManager;
 
 /**
  * Binds a bean object to a PropertySheet.
  *
  * When the property value of a bean changes, it is reflected back in the UI.
+ * After an edit, only the edited property and the properties depending on it
+ * are read again, see {@link DependsOn} and
+ * {@link #addDependency(String, String)}.
+ *
+ * Several beans are edited as one: the sheet shows the properties all of them
+ * have, with the {@link MixedValue} when their values differ, and an edit is
+ * written to all the beans.
+ *
+ * The beans having <code>addPropertyChangeListener</code> and
+ * <code>removePropertyChangeListener</code> methods are listened to until
+ * {@link #unbind()}: the properties they report as changed are read again on
+ * the EDT, at most once per {@link #getRefreshInterval()}.
  */
 public class BeanBinder {
 
+    /**
+     * Default delay, in milliseconds, between a change in a bound bean and
+     * the refresh of the sheet.
+     */
+    public static final int DEFAULT_REFRESH_INTERVAL = 100;
+
     private final List<Object> bean = new ArrayList<Object>();
     private final PropertySheetPanel sheet;
     private final PropertyChangeListener listener;
 
+    /**
+     * Properties being read from the beans, their change events are not
+     * edits to write back.
+     */
+    private final Set<Property> reading = Collections.newSetFromMap(new IdentityHashMap<Property, Boolean>());
+    private final List<String[]> declaredDependencies = new ArrayList<String[]>();
+    private final Map<Class<?>, PropertyDependencies> dependencies = new HashMap<Class<?>, PropertyDependencies>();
+    private final Set<Class<?>> beanClasses = new LinkedHashSet<Class<?>>();
+    private final String[] propertyNames;
+    private volatile boolean bound = true;
+
+    /**
+     * Listens to the bound beans.
+     */
+    private final PropertyChangeListener beanListener;
+    private final List<Object> boundBeans = new ArrayList<Object>();
+    private final Timer refreshTimer;
+
+    /**
+     * Names of the properties changed in the beans since the last refresh,
+     * null for all of them. Guarded by the timer.
+     */
+    private Set<String> changed = new HashSet<String>();
+
+    /**
+     * Names of the properties the binder is writing and reading again, on the
+     * writing thread: the changes the beans report meanwhile are not read a
+     * second time by the refresh.
+     */
+    private final Set<String> writing = new HashSet<String>();
+    private volatile Thread writingThread;
+
     /**
      * Constructor.
      *
@@ -74,58 +139,419 @@ public class BeanBinder {
         this.sheet = sheet;
 
         for (Object bn : bean) {
-            BeanInfo info = new DefaultBeanInfoResolver().getBeanInfo(bn);
-            for (PropertyDescriptor pd : info.getPropertyDescriptors()) {
-                sheet.addProperty(pd);
+            beanClasses.add(bn.getClass());
+        }
+        PropertyDescriptor[] descriptors = getCommonDescriptors();
+        propertyNames = new String[descriptors.length];
+        for (int ii = 0; ii < descriptors.length; ii++) {
+            propertyNames[ii] = descriptors[ii].getName();
+        }
+        sheet.addProperties(descriptors);
+        if (bean.length > 1) {
+            readMerged(sheet.getProperties());
+        } else {
+            for (Object bn : bean) {
+                sheet.readFromObject(bn);
             }
-            sheet.readFromObject(bn);
         }
 
-        //changing the property causes this to recursivly call,
-        //so kill it before it gets out of hand.
-        final AtomicBoolean fire = new AtomicBoolean(true);
-
         // everytime a property change, update the button with it
         listener = new PropertyChangeListener() {
             @Override
             public void propertyChange(PropertyChangeEvent evt) {
-                if (fire.get()) {
-                    fire.set(false);
-                    Property prop = (Property) evt.getSource();
+                Property prop = (Property) evt.getSource();
+                if (reading.contains(prop)) {
+                    // the value comes from the beans
+                    return;
+                }
+                // sub-properties are written to the value of their root
+                while (prop.getParentProperty() != null) {
+                    prop = prop.getParentProperty();
+                    if (reading.contains(prop)) {
+                        return;
+                    }
+                }
+                startWriting(prop.getName());
+                try {
+                    if (BeanBinder.this.bean.size() > 1) {
+                        writeMerged(prop);
+                        return;
+                    }
                     for (Object bn : BeanBinder.this.bean) {
                         try {
                             prop.writeToObject(bn);
-                            sheet.readFromObject(bn);
+                            readDependents(prop, bn);
                         } catch (RuntimeException e) {
                             // handle PropertyVetoException and restore previous value
                             if (e.getCause() instanceof PropertyVetoException) {
                                 UIManager.getLookAndFeel().provideErrorFeedback(
                                         BeanBinder.this.sheet);
-                                prop.setValue(evt.getOldValue());
+                                restore((Property) evt.getSource(), evt.getOldValue());
                             }
                         }
                     }
+                } finally {
+                    stopWriting();
                 }
-                fire.set(true);
             }
         };
         sheet.addPropertySheetChangeListener(listener);
+
+        // changes of bound beans are applied together, on the EDT
+        refreshTimer = new Timer(DEFAULT_REFRESH_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refreshChanged();
+            }
+        });
+        refreshTimer.setRepeats(false);
+        beanListener = new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (Thread.currentThread() == writingThread && writing.contains(evt.getPropertyName())) {
+                    // read again by the edit itself
+                    return;
+                }
+                synchronized (refreshTimer) {
+                    if (evt.getPropertyName() == null) {
+                        changed = null;
+                    } else if (changed != null) {
+                        changed.add(evt.getPropertyName());
+                    }
+                    if (!refreshTimer.isRunning()) {
+                        refreshTimer.start();
+                    }
+                }
+            }
+        };
+        Set<Object> listened = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        for (Object bn : bean) {
+            BeanAccessors accessors = BeanAccessors.forClass(bn.getClass());
+            if (accessors.isBound() && listened.add(bn)) {
+                try {
+                    accessors.addPropertyChangeListener(bn, beanListener);
+                    boundBeans.add(bn);
+                } catch (IllegalAccessException ex) {
+                    Logger.getLogger(BeanBinder.class.getName()).log(Level.SEVERE, null, ex);
+                } catch (InvocationTargetException ex) {
+                    Logger.getLogger(BeanBinder.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the interval of the refreshes caused by changes of the bound beans,
+     * the changes made meanwhile are applied together.
+     *
+     * @param millis the interval, in milliseconds.
+     */
+    public void setRefreshInterval(int millis) {
+        refreshTimer.setInitialDelay(millis);
+        refreshTimer.setDelay(millis);
+    }
+
+    /**
+     * @return the interval of the refreshes caused by changes of the bound
+     * beans, in milliseconds.
+     */
+    public int getRefreshInterval() {
+        return refreshTimer.getInitialDelay();
+    }
+
+    /**
+     * Declare a property to read again after writing another one, in addition
+     * to the dependencies declared with {@link DependsOn}.
+     *
+     * @param propertyName the name of the property written.
+     * @param dependentName the name of the property to read again.
+     */
+    public void addDependency(String propertyName, String dependentName) {
+        declaredDependencies.add(new String[]{propertyName, dependentName});
+        dependencies.clear();
     }
 
     /**
      * Update the sheet data.
      */
     public void update() {
+        Property[] properties = sheet.getProperties();
+        if (bean.size() > 1) {
+            readMerged(properties);
+            return;
+        }
+        reading.addAll(Arrays.asList(properties));
+        try {
+            for (Object bn : bean) {
+                sheet.readFromObject(bn);
+            }
+        } finally {
+            reading.removeAll(Arrays.asList(properties));
+        }
+    }
+
+    /**
+     * Mark a property and its dependents as written by the current thread.
+     */
+    private void startWriting(String name) {
+        writing.add(name);
+        for (Class<?> type : beanClasses) {
+            writing.addAll(Arrays.asList(getDependencies(type).getDependents(name)));
+        }
+        writingThread = Thread.currentThread();
+    }
+
+    private void stopWriting() {
+        writingThread = null;
+        writing.clear();
+    }
+
+    /**
+     * Read the written property and its dependents from a bean.
+     */
+    private void readDependents(Property prop, Object bn) {
+        String[] names = getDependencies(bn.getClass()).getDependents(prop.getName());
+        List<Property> properties = new ArrayList<Property>();
+        properties.add(prop);
+        if (names.length > 0) {
+            Set<String> dependents = new HashSet<String>(Arrays.asList(names));
+            for (Property property : sheet.getProperties()) {
+                if (property != prop && dependents.contains(property.getName())) {
+                    properties.add(property);
+                }
+            }
+        }
+        reading.addAll(properties);
+        try {
+            for (Property property : properties) {
+                property.readFromObject(bn);
+            }
+        } finally {
+            reading.removeAll(properties);
+        }
+    }
+
+    /**
+     * @return the beans.
+     */
+    List<Object> getBeans() {
+        return Collections.unmodifiableList(bean);
+    }
+
+    /**
+     * @return the sheet.
+     */
+    PropertySheetPanel getSheet() {
+        return sheet;
+    }
+
+    /**
+     * @return the names of the properties of the beans shown in the sheet.
+     */
+    String[] getPropertyNames() {
+        return propertyNames.clone();
+    }
+
+    /**
+     * @return false once {@link #unbind()} is called.
+     */
+    boolean isBound() {
+        return bound;
+    }
+
+    /**
+     * Set values read from the beans, on the EDT.
+     *
+     * @param names the names of the properties.
+     * @param values the values.
+     */
+    void setValues(String[] names, Object[] values) {
+        Map<String, Object> byName = new HashMap<String, Object>();
+        for (int ii = 0; ii < names.length; ii++) {
+            byName.put(names[ii], values[ii]);
+        }
+        List<Property> properties = new ArrayList<Property>();
+        for (Property property : sheet.getProperties()) {
+            if (byName.containsKey(property.getName())) {
+                properties.add(property);
+            }
+        }
+        reading.addAll(properties);
+        try {
+            for (Property property : properties) {
+                property.setValue(byName.get(property.getName()));
+                if (property instanceof AbstractProperty) {
+                    ((AbstractProperty) property).setDirty(false);
+                }
+            }
+        } finally {
+            reading.removeAll(properties);
+        }
+    }
+
+    /**
+     * Read the properties changed in the bound beans.
+     */
+    private void refreshChanged() {
+        Set<String> names;
+        synchronized (refreshTimer) {
+            names = changed;
+            changed = new HashSet<String>();
+        }
+        if (names == null) {
+            update();
+            return;
+        }
+        List<Property> properties = new ArrayList<Property>();
+        for (Property property : sheet.getProperties()) {
+            if (names.contains(property.getName())) {
+                properties.add(property);
+            }
+        }
+        if (properties.isEmpty()) {
+            return;
+        }
+        if (bean.size() > 1) {
+            readMerged(properties.toArray(new Property[properties.size()]));
+            return;
+        }
+        reading.addAll(properties);
+        try {
+            for (Object bn : bean) {
+                for (Property property : properties) {
+                    property.readFromObject(bn);
+                }
+            }
+        } finally {
+            reading.removeAll(properties);
+        }
+    }
+
+    /**
+     * Write an edited property to all the beans, then read it and its
+     * dependents again.
+     */
+    private void writeMerged(Property prop) {
+        Object value = prop.getValue();
+        if (MixedValue.isMixed(value)) {
+            return;
+        }
+        boolean vetoed = false;
         for (Object bn : bean) {
-            sheet.readFromObject(bn);
+            PropertyAccessor accessor = BeanAccessors.forClass(bn.getClass()).getAccessor(prop.getName());
+            if (accessor == null || !accessor.isWritable()) {
+                continue;
+            }
+            try {
+                accessor.write(bn, value);
+            } catch (IllegalAccessException ex) {
+                Logger.getLogger(BeanBinder.class.getName()).log(Level.SEVERE, null, ex);
+            } catch (InvocationTargetException ex) {
+                if (ex.getTargetException() instanceof PropertyVetoException) {
+                    vetoed = true;
+                } else {
+                    Logger.getLogger(BeanBinder.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        }
+        if (vetoed) {
+            UIManager.getLookAndFeel().provideErrorFeedback(sheet);
+        }
+
+        Set<String> names = new HashSet<String>();
+        for (Class<?> type : beanClasses) {
+            names.addAll(Arrays.asList(getDependencies(type).getDependents(prop.getName())));
         }
+        List<Property> properties = new ArrayList<Property>();
+        properties.add(prop);
+        for (Property property : sheet.getProperties()) {
+            if (property != prop && names.contains(property.getName())) {
+                properties.add(property);
+            }
+        }
+        readMerged(properties.toArray(new Property[properties.size()]));
+    }
+
+    /**
+     * Read properties from all the beans, properties whose values differ get
+     * the {@link MixedValue}.
+     */
+    private void readMerged(Property[] properties) {
+        String[] names = new String[properties.length];
+        for (int ii = 0; ii < properties.length; ii++) {
+            names[ii] = properties[ii].getName();
+        }
+        setValues(names, MergedValues.read(bean, names));
+    }
+
+    /**
+     * Get the properties of the first bean class which all the bean classes
+     * have, the BeanInfo of each class is looked up once.
+     */
+    private PropertyDescriptor[] getCommonDescriptors() {
+        Map<String, PropertyDescriptor> common = null;
+        for (Class<?> type : beanClasses) {
+            PropertyDescriptor[] descriptors = new DefaultBeanInfoResolver().getBeanInfo(type).getPropertyDescriptors();
+            if (common == null) {
+                common = new LinkedHashMap<String, PropertyDescriptor>();
+                for (PropertyDescriptor pd : descriptors) {
+                    if (!common.containsKey(pd.getName())) {
+                        common.put(pd.getName(), pd);
+                    }
+                }
+            } else {
+                Set<String> names = new HashSet<String>();
+                for (PropertyDescriptor pd : descriptors) {
+                    names.add(pd.getName());
+                }
+                common.keySet().retainAll(names);
+            }
+        }
+        return common == null ? new PropertyDescriptor[0]
+                : common.values().toArray(new PropertyDescriptor[common.size()]);
+    }
+
+    /**
+     * Set the value of a property without writing it back to the beans.
+     */
+    private void restore(Property prop, Object value) {
+        reading.add(prop);
+        try {
+            prop.setValue(value);
+        } finally {
+            reading.remove(prop);
+        }
+    }
+
+    private PropertyDependencies getDependencies(Class<?> beanClass) {
+        PropertyDependencies graph = dependencies.get(beanClass);
+        if (graph == null) {
+            graph = PropertyDependencies.forClass(beanClass);
+            for (String[] dependency : declaredDependencies) {
+                graph = graph.withDependency(dependency[0], dependency[1]);
+            }
+            dependencies.put(beanClass, graph);
+        }
+        return graph;
     }
 
     /**
      * Unbind the bean and the sheet.
      */
     public void unbind() {
-        sheet.removePropertyChangeListener(listener);
+        bound = false;
+        for (Object bn : boundBeans) {
+            try {
+                BeanAccessors.forClass(bn.getClass()).removePropertyChangeListener(bn, beanListener);
+            } catch (IllegalAccessException ex) {
+                Logger.getLogger(BeanBinder.class.getName()).log(Level.SEVERE, null, ex);
+            } catch (InvocationTargetException ex) {
+                Logger.getLogger(BeanBinder.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        boundBeans.clear();
+        refreshTimer.stop();
+        sheet.removePropertySheetChangeListener(listener);
         sheet.setProperties(new Property[0]);
     }
 }
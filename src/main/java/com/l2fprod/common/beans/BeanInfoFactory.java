@@ -41,18 +41,58 @@ public final class BeanInfoFactory {
     }
 
     /**
-     * Get the bean information of a type.
+     * Get the bean information of a type, created once and cached by
+     * {@link DefaultBeanInfoResolver}.
      *
      * @param c The type to get the bean information of.
      * @return The BeanInfo of the specified type.
      */
     public static BeanInfo createBeanInfo(Class<? extends Object> c) {
-        BeanInfo bi = DefaultBeanInfoResolver.getBeanInfoHelper(c);
-        if (bi == null) {
-            bi = new ConfigBeanInfo(c);
-            DefaultBeanInfoResolver.addBeanInfo(c, bi);
+        return DefaultBeanInfoResolver.getOrCreate(c);
+    }
+
+    /**
+     * Create the bean information of a type, without caching it. The
+     * BeanInfo class of the type written by {@link BeanInfoProcessor} is used
+     * when there is one, the annotations are read by introspection otherwise.
+     *
+     * @param c The type to get the bean information of.
+     * @return The BeanInfo of the specified type.
+     */
+    static BeanInfo newBeanInfo(Class<? extends Object> c) {
+        BaseBeanInfo info = newStaticBeanInfo(c);
+        return info != null ? info : new ConfigBeanInfo(c);
+    }
+
+    /**
+     * Create the <code>&lt;class&gt;$$L2fprodBeanInfo</code> class written by
+     * {@link BeanInfoProcessor} for a type. The name is not the one the
+     * Introspector looks up, which keeps seeing all the properties. Only the
+     * subclasses of BaseBeanInfo are used.
+     *
+     * @param c The type.
+     * @return The BeanInfo, null if there is none.
+     */
+    private static BaseBeanInfo newStaticBeanInfo(Class<? extends Object> c) {
+        if (c.getClassLoader() == null || c.isArray()) {
+            return null;
+        }
+        try {
+            Class<?> infoClass = Class.forName(c.getName() + "$$L2fprodBeanInfo", true, c.getClassLoader());
+            if (BaseBeanInfo.class.isAssignableFrom(infoClass)) {
+                BaseBeanInfo info = (BaseBeanInfo) infoClass.newInstance();
+                if (info.getType() == c) {
+                    return info;
+                }
+            }
+        } catch (ClassNotFoundException ex) {
+            // no BeanInfo class for this type
+        } catch (InstantiationException ex) {
+            Logger.getLogger(BeanInfoFactory.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (IllegalAccessException ex) {
+            Logger.getLogger(BeanInfoFactory.class.getName()).log(Level.SEVERE, null, ex);
         }
-        return bi;
+        return null;
     }
 
     /**
@@ -88,7 +128,7 @@ public final class BeanInfoFactory {
                          * Do not add properties that have the Browse annotation set to false.
                          */
                         if (browse == null || browse.enabled()) {
-                            ExtendedPropertyDescriptor epd = addProperty(prop.getName()).setCategory(cat == null ? "General" : cat.category());
+                            ExtendedPropertyDescriptor epd = addIntrospectedProperty(prop).setCategory(cat == null ? "General" : cat.category());
                             if (fp != null) {
                                 epd.setPropertyEditorClass(FilePropertyEditor.class);
                             } else if (dir != null) {
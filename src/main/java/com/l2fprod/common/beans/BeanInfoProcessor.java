@@ -0,0 +1,281 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor writing the BeanInfo class of the beans being
+ * compiled. <br>
+ *
+ * A class with an annotated read or write method gets a
+ * <code>&lt;class&gt;$$L2fprodBeanInfo</code> subclass of {@link BaseBeanInfo}
+ * in its package, listing the properties {@link BeanInfoFactory} would find
+ * by introspection: the categories, hidden properties, editors, display
+ * names and descriptions are read from the annotations at compile time, and
+ * the methods are looked up by name. Only {@link DefaultBeanInfoResolver}
+ * uses these classes: they are not named as the Introspector looks BeanInfo
+ * classes up, so the hidden properties are still seen by the JDK. The
+ * processor never claims any annotation.
+ */
+@SupportedAnnotationTypes({
+    "com.l2fprod.common.annotations.Browsable",
+    "com.l2fprod.common.annotations.Categorization",
+    "com.l2fprod.common.annotations.Description",
+    "com.l2fprod.common.annotations.DirectoryProperty",
+    "com.l2fprod.common.annotations.DisplayName",
+    "com.l2fprod.common.annotations.FileProperty"
+})
+public class BeanInfoProcessor extends AbstractProcessor {
+
+    private static final String ANNOTATIONS = "com.l2fprod.common.annotations.";
+    private static final String BASE_BEAN_INFO = "com.l2fprod.common.beans.BaseBeanInfo";
+    private static final String EDITORS = "com.l2fprod.common.beans.editor.";
+    private static final String SUFFIX = "$$L2fprodBeanInfo";
+
+    private final Set<String> written = new HashSet<String>();
+
+    public BeanInfoProcessor() {
+        super();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> beans = new LinkedHashSet<TypeElement>();
+        for (TypeElement annotation : annotations) {
+            for (ExecutableElement method : ElementFilter.methodsIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+                beans.add((TypeElement) method.getEnclosingElement());
+            }
+        }
+        for (TypeElement bean : beans) {
+            if (isBean(bean)) {
+                write(bean);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check the BeanInfo class of a type can be written: a class accessible
+     * from its package, not written yet by this compilation. The generated
+     * class of a previous build is written again, nothing else uses its name.
+     */
+    private boolean isBean(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL) {
+            if (type.getNestingKind() != NestingKind.MEMBER
+                    || !isBean((TypeElement) type.getEnclosingElement())) {
+                return false;
+            }
+        }
+        return !written.contains(processingEnv.getElementUtils().getBinaryName(type) + SUFFIX);
+    }
+
+    /**
+     * Find the properties of a bean as the Introspector, by name: the public
+     * read methods, the <code>is</code> methods of booleans first, and the
+     * write methods of the same type.
+     */
+    private Map<String, ExecutableElement[]> getProperties(TypeElement bean) {
+        Map<String, ExecutableElement[]> properties = new TreeMap<String, ExecutableElement[]>();
+        List<ExecutableElement> setters = new ArrayList<ExecutableElement>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(bean))) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)
+                    || ((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals("java.lang.Object")) {
+                continue;
+            }
+            String name = method.getSimpleName().toString();
+            TypeKind returnKind = method.getReturnType().getKind();
+            if (method.getParameters().isEmpty()) {
+                if (name.length() > 2 && name.startsWith("is") && returnKind == TypeKind.BOOLEAN) {
+                    properties.put(Introspector.decapitalize(name.substring(2)), new ExecutableElement[]{method, null});
+                } else if (name.length() > 3 && name.startsWith("get") && returnKind != TypeKind.VOID) {
+                    String property = Introspector.decapitalize(name.substring(3));
+                    if (!properties.containsKey(property)) {
+                        properties.put(property, new ExecutableElement[]{method, null});
+                    }
+                }
+            } else if (method.getParameters().size() == 1 && name.length() > 3 && name.startsWith("set")
+                    && returnKind == TypeKind.VOID) {
+                setters.add(method);
+            }
+        }
+        for (ExecutableElement setter : setters) {
+            ExecutableElement[] methods = properties.get(Introspector.decapitalize(setter.getSimpleName().toString().substring(3)));
+            if (methods != null && methods[1] == null && processingEnv.getTypeUtils().isSameType(
+                    erasure(methods[0].getReturnType()), erasure(setter.getParameters().get(0).asType()))) {
+                methods[1] = setter;
+            }
+        }
+        return properties;
+    }
+
+    private TypeMirror erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type);
+    }
+
+    /**
+     * Write the BeanInfo class of a bean.
+     */
+    private void write(TypeElement bean) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(bean).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(bean).toString();
+        String className = binaryName.substring(packageName.length() == 0 ? 0 : packageName.length() + 1) + SUFFIX;
+        written.add(binaryName + SUFFIX);
+
+        StringBuilder source = new StringBuilder();
+        if (packageName.length() > 0) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * BeanInfo of ").append(bean.getQualifiedName())
+                .append(", generated by ").append(BeanInfoProcessor.class.getName()).append(".\n */\n");
+        source.append("public class ").append(className).append(" extends ")
+                .append(BASE_BEAN_INFO).append(" {\n\n");
+        source.append("    public ").append(className).append("() {\n");
+        source.append("        super(").append(bean.getQualifiedName()).append(".class);\n");
+        for (Map.Entry<String, ExecutableElement[]> entry : getProperties(bean).entrySet()) {
+            ExecutableElement getter = entry.getValue()[0];
+            ExecutableElement setter = entry.getValue()[1];
+            Object enabled = getValue(getter, "Browsable", "enabled");
+            if (Boolean.FALSE.equals(enabled)) {
+                continue;
+            }
+            Object category = getValue(getter, "Categorization", "category");
+            Object displayName = getValue(getter, "DisplayName", "value");
+            if (displayName == null && setter != null) {
+                displayName = getValue(setter, "DisplayName", "value");
+            }
+            Object description = getValue(getter, "Description", "value");
+            if (description == null && setter != null) {
+                description = getValue(setter, "Description", "value");
+            }
+            source.append("        addProperty(").append(quote(entry.getKey()))
+                    .append(", ").append(quote(getter.getSimpleName()))
+                    .append(", ").append(quote(setter == null ? null : setter.getSimpleName()))
+                    .append(", ").append(quote(displayName))
+                    .append(", ").append(quote(description))
+                    .append(")\n                .setCategory(").append(quote(category == null ? "General" : category))
+                    .append(")");
+            if (getAnnotation(getter, "FileProperty") != null) {
+                source.append("\n                .setPropertyEditorClass(").append(EDITORS).append("FilePropertyEditor.class)");
+            } else if (getAnnotation(getter, "DirectoryProperty") != null) {
+                source.append("\n                .setPropertyEditorClass(").append(EDITORS).append("DirectoryPropertyEditor.class)");
+            }
+            source.append(";\n");
+        }
+        source.append("    }\n}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                    packageName.length() == 0 ? className : packageName + "." + className, bean);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write the BeanInfo of " + binaryName + ": " + ex.getMessage(), bean);
+        }
+    }
+
+    private AnnotationMirror getAnnotation(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(ANNOTATIONS + annotation)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read a member of an annotation, its default value included.
+     *
+     * @return the value, null if the element is not annotated.
+     */
+    private Object getValue(Element element, String annotation, String member) {
+        AnnotationMirror mirror = getAnnotation(element, annotation);
+        if (mirror == null) {
+            return null;
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(member)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write a value as a Java string literal.
+     */
+    private static String quote(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        String text = value.toString();
+        StringBuilder literal = new StringBuilder("\"");
+        for (int ii = 0; ii < text.length(); ii++) {
+            char c = text.charAt(ii);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < ' ' || c > '~') {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * BeanRefreshScheduler. <br>
+ *
+ * Reads the beans of binders periodically, for beans which do not report
+ * their changes. The properties are read in the background, the values which
+ * changed since the previous read are set in the sheet on the EDT, together.
+ *
+ * A binder is not read while its sheet is not showing, the sheet is listened
+ * to on the EDT whatever the thread scheduling the binder. When reading the beans
+ * takes longer than the period, the delay between two reads grows, up to
+ * {@link #MAX_BACKOFF} times the period, and shrinks back once reads are
+ * fast again. Binders are no longer read once unbound.
+ */
+public final class BeanRefreshScheduler {
+
+    /**
+     * Maximum ratio between the delay of two reads and the period.
+     */
+    public static final int MAX_BACKOFF = 32;
+
+    private final ScheduledExecutorService executor;
+    private final boolean ownExecutor;
+    private final Map<BeanBinder, Task> tasks = new ConcurrentHashMap<BeanBinder, Task>();
+
+    /**
+     * Constructor, the beans are read by a daemon thread of the scheduler.
+     */
+    public BeanRefreshScheduler() {
+        this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Bean refresh " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.ownExecutor = true;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param executor the executor reading the beans, not shut down by the
+     * scheduler.
+     */
+    public BeanRefreshScheduler(ScheduledExecutorService executor) {
+        this.executor = executor;
+        this.ownExecutor = false;
+    }
+
+    /**
+     * Read the beans of a binder periodically, replacing the previous period
+     * of the binder.
+     *
+     * @param binder the binder.
+     * @param period the period.
+     * @param unit the unit of the period.
+     */
+    public void schedule(BeanBinder binder, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        cancel(binder);
+        Task task = new Task(binder, unit.toNanos(period));
+        tasks.put(binder, task);
+        task.start();
+    }
+
+    /**
+     * Stop reading the beans of a binder.
+     *
+     * @param binder the binder.
+     */
+    public void cancel(BeanBinder binder) {
+        Task task = tasks.remove(binder);
+        if (task != null) {
+            task.stop();
+        }
+    }
+
+    /**
+     * Stop reading the beans of all the binders, the scheduler can not be
+     * used anymore.
+     */
+    public void shutdown() {
+        for (BeanBinder binder : new ArrayList<BeanBinder>(tasks.keySet())) {
+            cancel(binder);
+        }
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Periodic read of a binder, scheduled again after each read so reads do
+     * not overlap.
+     */
+    private final class Task implements Runnable, HierarchyListener {
+
+        private final BeanBinder binder;
+        private final String[] names;
+        private final long period;
+        private long delay;
+        private Object[] snapshot;
+        private volatile boolean showing;
+        private volatile boolean stopped;
+        private volatile ScheduledFuture<?> future;
+
+        Task(BeanBinder binder, long period) {
+            this.binder = binder;
+            this.names = binder.getPropertyNames();
+            this.period = period;
+            this.delay = period;
+        }
+
+        void start() {
+            onEdt(new Runnable() {
+                @Override
+                public void run() {
+                    if (!stopped) {
+                        binder.getSheet().addHierarchyListener(Task.this);
+                        showing = binder.getSheet().isShowing();
+                    }
+                }
+            });
+            future = executor.schedule(this, delay, TimeUnit.NANOSECONDS);
+        }
+
+        void stop() {
+            stopped = true;
+            onEdt(new Runnable() {
+                @Override
+                public void run() {
+                    binder.getSheet().removeHierarchyListener(Task.this);
+                }
+            });
+            ScheduledFuture<?> current = future;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        @Override
+        public void hierarchyChanged(HierarchyEvent e) {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                showing = binder.getSheet().isShowing();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (stopped) {
+                return;
+            }
+            if (!binder.isBound()) {
+                tasks.remove(binder);
+                stop();
+                return;
+            }
+            if (showing) {
+                long start = System.nanoTime();
+                try {
+                    read();
+                } catch (RuntimeException ex) {
+                    Logger.getLogger(BeanRefreshScheduler.class.getName()).log(Level.SEVERE, null, ex);
+                }
+                long duration = System.nanoTime() - start;
+                if (duration > delay) {
+                    delay = Math.min(delay * 2, period * MAX_BACKOFF);
+                } else if (delay > period && duration < delay / 2) {
+                    delay = Math.max(period, delay / 2);
+                }
+            }
+            if (!stopped) {
+                future = executor.schedule(this, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Run on the EDT, now if it is the current thread: the listener is
+         * removed after it is added, whatever the threads.
+         */
+        private void onEdt(Runnable runnable) {
+            if (SwingUtilities.isEventDispatchThread()) {
+                runnable.run();
+            } else {
+                SwingUtilities.invokeLater(runnable);
+            }
+        }
+
+        /**
+         * Read the beans and post the values which changed.
+         */
+        private void read() {
+            Object[] values = MergedValues.read(binder.getBeans(), names);
+            List<String> changedNames = new ArrayList<String>();
+            List<Object> changedValues = new ArrayList<Object>();
+            for (int ii = 0; ii < names.length; ii++) {
+                Object value = values[ii];
+                Object previous = snapshot == null ? null : snapshot[ii];
+                if (snapshot == null || (value != previous && (value == null || !value.equals(previous)))) {
+                    changedNames.add(names[ii]);
+                    changedValues.add(value);
+                }
+            }
+            snapshot = values;
+            if (changedNames.isEmpty()) {
+                return;
+            }
+            final String[] batchNames = changedNames.toArray(new String[changedNames.size()]);
+            final Object[] batchValues = changedValues.toArray();
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    if (!stopped && binder.isBound()) {
+                        binder.setValues(batchNames, batchValues);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -15,17 +15,13 @@
  */
 package com.l2fprod.common.beans;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * BeanUtils. <br>
  *
- * Adds helper methods for accessing read/write methods for a property.
+ * Adds helper methods for accessing read/write methods for a property. The
+ * methods are looked up in the {@link BeanAccessors} of the class.
  */
 public final class BeanUtils {
 
@@ -43,19 +39,7 @@ public final class BeanUtils {
      * @return the method for reading the property.
      */
     public static Method getReadMethod(Class<?> clazz, String propertyName) {
-        Method readMethod = null;
-        try {
-            PropertyDescriptor[] thisProps = Introspector.getBeanInfo(clazz).getPropertyDescriptors();
-            for (PropertyDescriptor pd : thisProps) {
-                if (pd.getName().equals(propertyName) && pd.getReadMethod() != null) {
-                    readMethod = pd.getReadMethod();
-                    break;
-                }
-            }
-        } catch (IntrospectionException ex) {
-            Logger.getLogger(BeanUtils.class.getName()).log(Level.SEVERE, null, ex);
-        }
-        return readMethod;
+        return BeanAccessors.forClass(clazz).getReadMethod(propertyName);
     }
 
     /**
@@ -66,19 +50,7 @@ public final class BeanUtils {
      * @return
      */
     public static Method getWriteMethod(Class<?> clazz, String propertyName) {
-        Method writeMethod = null;
-        try {
-            PropertyDescriptor[] thisProps = Introspector.getBeanInfo(clazz).getPropertyDescriptors();
-            for (PropertyDescriptor pd : thisProps) {
-                if (pd.getName().equals(propertyName) && pd.getWriteMethod() != null) {
-                    writeMethod = pd.getWriteMethod();
-                    break;
-                }
-            }
-        } catch (IntrospectionException ex) {
-            Logger.getLogger(BeanUtils.class.getName()).log(Level.SEVERE, null, ex);
-        }
-        return writeMethod;
+        return BeanAccessors.forClass(clazz).getWriteMethod(propertyName);
     }
 
 }
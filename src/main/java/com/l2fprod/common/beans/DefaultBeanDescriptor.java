@@ -15,8 +15,8 @@
  */
 package com.l2fprod.common.beans;
 
+import com.l2fprod.common.util.ResourceManager;
 import java.beans.BeanDescriptor;
-import java.util.MissingResourceException;
 
 /**
  * DefaultBeanDescriptor.
@@ -32,15 +32,15 @@ final class DefaultBeanDescriptor extends BeanDescriptor {
     @SuppressWarnings("OverridableMethodCallInConstructor")
     DefaultBeanDescriptor(BaseBeanInfo beanInfo) {
         super(beanInfo.getType());
-        try {
-            setDisplayName(beanInfo.getResources().getString("beanName"));
-        } catch (MissingResourceException e) {
-            // this resource is not mandatory
+        // these resources are not mandatory
+        ResourceManager resources = beanInfo.findResources();
+        String beanName = resources == null ? null : resources.findString("beanName");
+        if (beanName != null) {
+            setDisplayName(beanName);
         }
-        try {
-            setShortDescription(beanInfo.getResources().getString("beanDescription"));
-        } catch (MissingResourceException e) {
-            // this resource is not mandatory
+        String beanDescription = resources == null ? null : resources.findString("beanDescription");
+        if (beanDescription != null) {
+            setShortDescription(beanDescription);
         }
     }
 
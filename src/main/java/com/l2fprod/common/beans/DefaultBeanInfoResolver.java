@@ -15,30 +15,169 @@
  */
 package com.l2fprod.common.beans;
 
+import com.l2fprod.common.util.ClassCache;
+import com.l2fprod.common.util.index.RegistryIndex;
 import java.beans.BeanInfo;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * DefaultBeanInfoResolver. <br>
  *
+ * The BeanInfo of each class is created once by {@link BeanInfoFactory}
+ * unless one was added with {@link #addBeanInfo(Class, BeanInfo)}. The
+ * added and created BeanInfo are kept as long as their class, apart from each
+ * other, and do not keep the class loaders of plugins alive.
+ *
+ * The BeanInfo of known classes can be computed ahead of their first display
+ * with the <code>warmUp</code> methods. Bean classes may be listed in the
+ * <code>META-INF/l2fprod/java.beans.BeanInfo.index</code> resources, one
+ * class name per line, to be warmed up by package.
  */
 public class DefaultBeanInfoResolver implements BeanInfoResolver {
 
-    private static final HashMap<String, BeanInfo> MAP = new HashMap<String, BeanInfo>();
+    private static final ClassCache<BeanInfo> CACHE = new ClassCache<BeanInfo>() {
+        @Override
+        protected BeanInfo computeValue(Class<?> type) {
+            return BeanInfoFactory.newBeanInfo(type);
+        }
+    };
+
+    /**
+     * The BeanInfo added with {@link #addBeanInfo(Class, BeanInfo)}, never
+     * computed.
+     */
+    private static final ClassCache<BeanInfo> ADDED = new ClassCache<BeanInfo>() {
+        @Override
+        protected BeanInfo computeValue(Class<?> type) {
+            return null;
+        }
+    };
 
     public DefaultBeanInfoResolver() {
         super();
     }
 
-    public static synchronized void addBeanInfo(Class<?> clazz, BeanInfo bi) {
-        MAP.put(clazz.getName(), bi);
+    public static void addBeanInfo(Class<?> clazz, BeanInfo bi) {
+        ADDED.put(clazz, bi);
+    }
+
+    public static BeanInfo getBeanInfoHelper(Class<?> clazz) {
+        BeanInfo added = ADDED.getIfPresent(clazz);
+        return added != null ? added : CACHE.getIfPresent(clazz);
+    }
+
+    /**
+     * Get the BeanInfo of a class, created on first use.
+     *
+     * @param clazz the class.
+     * @return the BeanInfo.
+     */
+    static BeanInfo getOrCreate(Class<?> clazz) {
+        BeanInfo added = ADDED.getIfPresent(clazz);
+        return added != null ? added : CACHE.get(clazz);
+    }
+
+    /**
+     * Compute the BeanInfo of classes in parallel on a background pool, one
+     * thread per processor.
+     *
+     * @param classes the classes.
+     * @return the future number of BeanInfo computed.
+     */
+    public static Future<Integer> warmUp(Collection<Class<?>> classes) {
+        ExecutorService executor = newWarmUpExecutor();
+        try {
+            return warmUp(classes, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Compute the BeanInfo of classes in parallel. Classes failing to
+     * introspect or rejected by the executor are logged and not counted.
+     *
+     * @param classes the classes.
+     * @param executor the executor computing the BeanInfo, one task per
+     * class.
+     * @return the future number of BeanInfo computed.
+     */
+    public static Future<Integer> warmUp(Collection<Class<?>> classes, ExecutorService executor) {
+        WarmUp warmUp = new WarmUp(classes.size());
+        for (Class<?> clazz : classes) {
+            warmUp.submit(executor, clazz.getName(), clazz, null);
+        }
+        return warmUp;
     }
 
-    public static synchronized BeanInfo getBeanInfoHelper(Class<?> clazz) {
-        if (MAP.containsKey(clazz.getName())) {
-            return MAP.get(clazz.getName());
+    /**
+     * Compute the BeanInfo of the indexed classes of a package and its
+     * subpackages in parallel on a background pool.
+     *
+     * @param packageName the package.
+     * @param loader the class loader of the index and the classes.
+     * @return the future number of BeanInfo computed.
+     */
+    public static Future<Integer> warmUp(String packageName, ClassLoader loader) {
+        ExecutorService executor = newWarmUpExecutor();
+        try {
+            return warmUp(packageName, loader, executor);
+        } finally {
+            executor.shutdown();
         }
-        return null;
+    }
+
+    /**
+     * Compute the BeanInfo of the indexed classes of a package and its
+     * subpackages in parallel. Classes which cannot be loaded or are rejected
+     * by the executor are logged and not counted.
+     *
+     * @param packageName the package.
+     * @param loader the class loader of the index and the classes.
+     * @param executor the executor computing the BeanInfo.
+     * @return the future number of BeanInfo computed.
+     */
+    public static Future<Integer> warmUp(String packageName, ClassLoader loader, ExecutorService executor) {
+        String prefix = packageName.length() == 0 ? "" : packageName + ".";
+        List<String> names = new ArrayList<String>();
+        for (String name : RegistryIndex.load(BeanInfo.class, loader).getProviders()) {
+            if (name.startsWith(prefix)) {
+                names.add(name);
+            }
+        }
+        WarmUp warmUp = new WarmUp(names.size());
+        for (String name : names) {
+            warmUp.submit(executor, name, null, loader);
+        }
+        return warmUp;
+    }
+
+    private static ExecutorService newWarmUpExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "BeanInfo warm-up " + count.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
     }
 
     @Override
@@ -56,12 +195,118 @@ public class DefaultBeanInfoResolver implements BeanInfoResolver {
             return null;
         }
 
-        String classname = clazz.getName();
+        return getOrCreate(clazz);
+    }
+
+    /**
+     * Completion of a warm-up, done when every class was handled.
+     */
+    private static final class WarmUp implements Future<Integer> {
+
+        private final CountDownLatch remaining;
+        private final AtomicInteger computed = new AtomicInteger();
+        private final List<Task> tasks = new ArrayList<Task>();
+        private volatile boolean cancelled;
+
+        WarmUp(int count) {
+            remaining = new CountDownLatch(count);
+        }
+
+        void submit(ExecutorService executor, String name, Class<?> clazz, ClassLoader loader) {
+            Task task = new Task(name, clazz, loader);
+            synchronized (tasks) {
+                tasks.add(task);
+            }
+            try {
+                task.future = executor.submit(task);
+            } catch (RejectedExecutionException ex) {
+                // not computed, as a class failing to introspect
+                Logger.getLogger(DefaultBeanInfoResolver.class.getName()).log(Level.SEVERE, name, ex);
+                task.finish();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (isDone()) {
+                return false;
+            }
+            cancelled = true;
+            synchronized (tasks) {
+                for (Task task : tasks) {
+                    Future<?> future = task.future;
+                    if (future != null) {
+                        future.cancel(mayInterruptIfRunning);
+                    }
+                    task.finish();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return remaining.getCount() == 0;
+        }
+
+        @Override
+        public Integer get() throws InterruptedException {
+            remaining.await();
+            return computed.get();
+        }
+
+        @Override
+        public Integer get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+            if (!remaining.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return computed.get();
+        }
+
+        /**
+         * Computation of the BeanInfo of one class, counted down once
+         * whether it runs or is cancelled.
+         */
+        private final class Task implements Runnable {
+
+            private final String name;
+            private final Class<?> clazz;
+            private final ClassLoader loader;
+            private final AtomicBoolean finished = new AtomicBoolean();
+            private volatile Future<?> future;
+
+            Task(String name, Class<?> clazz, ClassLoader loader) {
+                this.name = name;
+                this.clazz = clazz;
+                this.loader = loader;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    Class<?> type = clazz == null ? Class.forName(name, false, loader) : clazz;
+                    if (!cancelled && getOrCreate(type) != null) {
+                        computed.incrementAndGet();
+                    }
+                } catch (ClassNotFoundException ex) {
+                    Logger.getLogger(DefaultBeanInfoResolver.class.getName()).log(Level.WARNING, name, ex);
+                } catch (RuntimeException ex) {
+                    Logger.getLogger(DefaultBeanInfoResolver.class.getName()).log(Level.SEVERE, name, ex);
+                } finally {
+                    finish();
+                }
+            }
 
-        if (MAP.containsKey(classname)) {
-            return MAP.get(classname);
-        } else {
-            return BeanInfoFactory.createBeanInfo(clazz);
+            void finish() {
+                if (finished.compareAndSet(false, true)) {
+                    remaining.countDown();
+                }
+            }
         }
     }
 }
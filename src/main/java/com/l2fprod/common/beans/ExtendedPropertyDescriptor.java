@@ -166,4 +166,23 @@ public class ExtendedPropertyDescriptor extends PropertyDescriptor {
         return new ExtendedPropertyDescriptor(propertyName, readMethod, writeMethod);
     }
 
+    /**
+     * Create an extended descriptor with the methods of a descriptor, as
+     * given by the Introspector.
+     *
+     * @param property the descriptor.
+     * @return the extended descriptor.
+     * @throws IntrospectionException if the property has no read method.
+     */
+    public static ExtendedPropertyDescriptor newPropertyDescriptor(PropertyDescriptor property)
+            throws IntrospectionException {
+        if (property.getReadMethod() == null) {
+            throw new IntrospectionException(
+                    "No getter for property "
+                    + property.getName());
+        }
+        return new ExtendedPropertyDescriptor(property.getName(), property.getReadMethod(),
+                property.getWriteMethod());
+    }
+
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import com.l2fprod.common.propertysheet.MixedValue;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the values of properties shared by several beans. <br>
+ *
+ * The value of a property is the one of the beans if they all have the same,
+ * {@link MixedValue#INSTANCE} otherwise. Large sets of beans are read in
+ * chunks by a pool of daemon threads, the calling thread reading the last
+ * chunk.
+ */
+final class MergedValues {
+
+    /**
+     * Number of beans read by a task.
+     */
+    static final int CHUNK_SIZE = 256;
+
+    /**
+     * Value of a property no bean could read.
+     */
+    private static final Object UNSET = new Object();
+
+    private static volatile ExecutorService executor;
+
+    private MergedValues() {
+    }
+
+    /**
+     * Read the values of properties.
+     *
+     * @param beans the beans.
+     * @param names the names of the properties.
+     * @return the values, in the order of the names. The value of a property
+     * no bean could read is null.
+     */
+    static Object[] read(final List<?> beans, final String[] names) {
+        int chunks = (beans.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        List<Future<Object[]>> futures = new ArrayList<Future<Object[]>>();
+        for (int ii = 0; ii < chunks - 1; ii++) {
+            final int start = ii * CHUNK_SIZE;
+            futures.add(getExecutor().submit(new Callable<Object[]>() {
+                @Override
+                public Object[] call() {
+                    return read(beans, start, start + CHUNK_SIZE, names);
+                }
+            }));
+        }
+        Object[] values = read(beans, Math.max(0, chunks - 1) * CHUNK_SIZE, beans.size(), names);
+        for (Future<Object[]> future : futures) {
+            Object[] chunk = waitFor(future);
+            for (int jj = 0; jj < names.length; jj++) {
+                values[jj] = merge(values[jj], chunk[jj]);
+            }
+        }
+        for (int jj = 0; jj < names.length; jj++) {
+            if (values[jj] == UNSET) {
+                values[jj] = null;
+            }
+        }
+        return values;
+    }
+
+    private static Object[] read(List<?> beans, int start, int end, String[] names) {
+        Object[] values = new Object[names.length];
+        Arrays.fill(values, UNSET);
+        BeanAccessors accessors = null;
+        for (int ii = start; ii < end; ii++) {
+            Object bean = beans.get(ii);
+            if (accessors == null || accessors.getBeanClass() != bean.getClass()) {
+                accessors = BeanAccessors.forClass(bean.getClass());
+            }
+            for (int jj = 0; jj < names.length; jj++) {
+                if (MixedValue.isMixed(values[jj])) {
+                    continue;
+                }
+                PropertyAccessor accessor = accessors.getAccessor(names[jj]);
+                if (accessor != null && accessor.isReadable()) {
+                    try {
+                        values[jj] = merge(values[jj], accessor.read(bean));
+                    } catch (IllegalAccessException ex) {
+                        // not readable from this bean, as PropertyDescriptorAdapter
+                    } catch (InvocationTargetException ex) {
+                        // not readable from this bean, as PropertyDescriptorAdapter
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    private static Object merge(Object value, Object other) {
+        if (value == UNSET) {
+            return other;
+        }
+        if (other == UNSET || value == other || (value != null && value.equals(other))) {
+            return value;
+        }
+        return MixedValue.INSTANCE;
+    }
+
+    private static Object[] waitFor(Future<Object[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Get the pool reading the chunks, its threads end when idle.
+     */
+    private static ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (MergedValues.class) {
+                if (executor == null) {
+                    int threads = Runtime.getRuntime().availableProcessors();
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "BeanBinder read " + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+}
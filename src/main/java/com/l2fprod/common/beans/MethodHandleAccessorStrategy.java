@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * MethodHandleAccessorStrategy. <br>
+ *
+ * Accessors calling the property methods through method handles, the
+ * default strategy. The handles are adapted once to take and return objects,
+ * so a read or a write is a direct call without argument array nor access
+ * check.
+ *
+ * Methods which can not be looked up from this class are called through
+ * {@link ReflectionAccessorStrategy}. Calls the handles can not make as
+ * reflection would, on a bean of another class or with a value to widen
+ * or of the wrong type, are made through reflection too, so both strategies
+ * give the same results and exceptions.
+ */
+public final class MethodHandleAccessorStrategy implements AccessorStrategy {
+
+    private static final MethodType READ_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType WRITE_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final AccessorStrategy fallback = new ReflectionAccessorStrategy();
+
+    @Override
+    public PropertyAccessor createAccessor(Method readMethod, Method writeMethod) {
+        try {
+            MethodHandle reader = readMethod == null ? null : unreflect(readMethod).asType(READ_TYPE);
+            MethodHandle writer = writeMethod == null ? null : unreflect(writeMethod).asType(WRITE_TYPE);
+            return new MethodHandleAccessor(readMethod, reader, writeMethod, writer);
+        } catch (IllegalAccessException ex) {
+            // not accessible from this class
+            return fallback.createAccessor(readMethod, writeMethod);
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        return MethodHandles.lookup().unreflect(ReflectionAccessorStrategy.accessible(method));
+    }
+
+    /**
+     * Accessor invoking the handles.
+     */
+    private static final class MethodHandleAccessor implements PropertyAccessor {
+
+        private final Method readMethod;
+        private final MethodHandle reader;
+        private final Method writeMethod;
+        private final MethodHandle writer;
+        private final Class<?> valueType;
+
+        MethodHandleAccessor(Method readMethod, MethodHandle reader, Method writeMethod, MethodHandle writer) {
+            this.readMethod = readMethod;
+            this.reader = reader;
+            this.writeMethod = writeMethod;
+            this.writer = writer;
+            this.valueType = writeMethod == null ? null
+                    : MethodType.methodType(writeMethod.getParameterTypes()[0]).wrap().returnType();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return readMethod != null;
+        }
+
+        @Override
+        public boolean isWritable() {
+            return writeMethod != null;
+        }
+
+        @Override
+        public Object read(Object bean) throws IllegalAccessException, InvocationTargetException {
+            if (!readMethod.getDeclaringClass().isInstance(bean)) {
+                return readMethod.invoke(bean);
+            }
+            try {
+                return (Object) reader.invokeExact(bean);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+
+        @Override
+        public void write(Object bean, Object value) throws IllegalAccessException, InvocationTargetException {
+            if (!writeMethod.getDeclaringClass().isInstance(bean)
+                    || (value == null ? writeMethod.getParameterTypes()[0].isPrimitive() : !valueType.isInstance(value))) {
+                writeMethod.invoke(bean, value);
+                return;
+            }
+            try {
+                writer.invokeExact(bean, value);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+    }
+}
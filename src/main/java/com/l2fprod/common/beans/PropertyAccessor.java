@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * PropertyAccessor. <br>
+ *
+ * Reads and writes one property of beans. Accessors are created once per
+ * property by the {@link AccessorStrategy} of {@link BeanAccessors}. Failures
+ * of the property methods are reported as by
+ * {@link java.lang.reflect.Method#invoke(Object, Object...)}.
+ */
+public interface PropertyAccessor {
+
+    /**
+     * @return true if the property can be read.
+     */
+    boolean isReadable();
+
+    /**
+     * @return true if the property can be written.
+     */
+    boolean isWritable();
+
+    /**
+     * Read the property.
+     *
+     * @param bean the bean.
+     * @return the value.
+     * @throws IllegalAccessException if the read method is not accessible.
+     * @throws InvocationTargetException if the read method failed.
+     */
+    Object read(Object bean) throws IllegalAccessException, InvocationTargetException;
+
+    /**
+     * Write the property.
+     *
+     * @param bean the bean.
+     * @param value the value.
+     * @throws IllegalAccessException if the write method is not accessible.
+     * @throws InvocationTargetException if the write method failed.
+     */
+    void write(Object bean, Object value) throws IllegalAccessException, InvocationTargetException;
+}
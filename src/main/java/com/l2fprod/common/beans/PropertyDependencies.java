@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import com.l2fprod.common.util.ClassCache;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * PropertyDependencies. <br>
+ *
+ * The properties to read again after writing a property, declared with
+ * {@link DependsOn} or added with {@link #withDependency(String, String)}.
+ * The dependents are resolved once, transitively, when the graph is built:
+ * looking them up costs a map access.
+ */
+public final class PropertyDependencies {
+
+    private static final String[] NONE = new String[0];
+
+    private static final ClassCache<PropertyDependencies> CACHE = new ClassCache<PropertyDependencies>() {
+        @Override
+        protected PropertyDependencies computeValue(Class<?> type) {
+            return new PropertyDependencies(getDeclaredDependencies(type));
+        }
+    };
+
+    /**
+     * Direct dependents by property name.
+     */
+    private final Map<String, Set<String>> edges;
+
+    /**
+     * All the dependents by property name, in breadth-first order.
+     */
+    private final Map<String, String[]> dependents;
+
+    private PropertyDependencies(Map<String, Set<String>> edges) {
+        this.edges = edges;
+        Map<String, String[]> all = new HashMap<String, String[]>();
+        for (String property : edges.keySet()) {
+            Set<String> reached = new LinkedHashSet<String>();
+            List<String> pending = new ArrayList<String>();
+            pending.add(property);
+            for (int ii = 0; ii < pending.size(); ii++) {
+                Set<String> direct = edges.get(pending.get(ii));
+                if (direct != null) {
+                    for (String dependent : direct) {
+                        if (!dependent.equals(property) && reached.add(dependent)) {
+                            pending.add(dependent);
+                        }
+                    }
+                }
+            }
+            all.put(property, reached.toArray(new String[reached.size()]));
+        }
+        this.dependents = Collections.unmodifiableMap(all);
+    }
+
+    /**
+     * Get the dependencies declared by a class, built on first use.
+     *
+     * @param beanClass the class.
+     * @return the dependencies.
+     */
+    public static PropertyDependencies forClass(Class<?> beanClass) {
+        return CACHE.get(beanClass);
+    }
+
+    /**
+     * Get the properties to read again after writing a property, the
+     * dependents of its dependents included.
+     *
+     * @param propertyName the name of the property.
+     * @return the names of the dependents, empty if none.
+     */
+    public String[] getDependents(String propertyName) {
+        String[] names = dependents.get(propertyName);
+        return names == null ? NONE : names.clone();
+    }
+
+    /**
+     * Add a dependency. This graph is not changed.
+     *
+     * @param propertyName the name of the property.
+     * @param dependentName the name of the property to read again after
+     * writing it.
+     * @return the graph with the dependency.
+     */
+    public PropertyDependencies withDependency(String propertyName, String dependentName) {
+        Map<String, Set<String>> copy = new LinkedHashMap<String, Set<String>>();
+        for (Map.Entry<String, Set<String>> entry : edges.entrySet()) {
+            copy.put(entry.getKey(), new LinkedHashSet<String>(entry.getValue()));
+        }
+        addEdge(copy, propertyName, dependentName);
+        return new PropertyDependencies(copy);
+    }
+
+    private static Map<String, Set<String>> getDeclaredDependencies(Class<?> beanClass) {
+        Map<String, Set<String>> edges = new LinkedHashMap<String, Set<String>>();
+        try {
+            for (PropertyDescriptor pd : Introspector.getBeanInfo(beanClass).getPropertyDescriptors()) {
+                DependsOn dependsOn = pd.getReadMethod() == null ? null
+                        : pd.getReadMethod().getAnnotation(DependsOn.class);
+                if (dependsOn != null) {
+                    for (String propertyName : dependsOn.value()) {
+                        addEdge(edges, propertyName, pd.getName());
+                    }
+                }
+            }
+        } catch (IntrospectionException ex) {
+            Logger.getLogger(PropertyDependencies.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return edges;
+    }
+
+    private static void addEdge(Map<String, Set<String>> edges, String propertyName, String dependentName) {
+        Set<String> direct = edges.get(propertyName);
+        if (direct == null) {
+            direct = new LinkedHashSet<String>();
+            edges.put(propertyName, direct);
+        }
+        direct.add(dependentName);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * ReflectionAccessorStrategy. <br>
+ *
+ * Accessors calling the property methods through reflection. The access
+ * checks are suppressed once, when the accessor is created, if the security
+ * manager allows it.
+ */
+public final class ReflectionAccessorStrategy implements AccessorStrategy {
+
+    @Override
+    public PropertyAccessor createAccessor(Method readMethod, Method writeMethod) {
+        return new ReflectionAccessor(accessible(readMethod), accessible(writeMethod));
+    }
+
+    /**
+     * Suppress the access checks of a method, if allowed.
+     *
+     * @param method the method, may be null.
+     * @return the method.
+     */
+    static Method accessible(Method method) {
+        if (method != null) {
+            try {
+                method.setAccessible(true);
+            } catch (RuntimeException ex) {
+                // denied by the security manager or the module of the
+                // class, the access is checked on each call instead
+            }
+        }
+        return method;
+    }
+
+    /**
+     * Accessor invoking the methods.
+     */
+    private static final class ReflectionAccessor implements PropertyAccessor {
+
+        private final Method readMethod;
+        private final Method writeMethod;
+
+        ReflectionAccessor(Method readMethod, Method writeMethod) {
+            this.readMethod = readMethod;
+            this.writeMethod = writeMethod;
+        }
+
+        @Override
+        public boolean isReadable() {
+            return readMethod != null;
+        }
+
+        @Override
+        public boolean isWritable() {
+            return writeMethod != null;
+        }
+
+        @Override
+        public Object read(Object bean) throws IllegalAccessException, InvocationTargetException {
+            return readMethod.invoke(bean);
+        }
+
+        @Override
+        public void write(Object bean, Object value) throws IllegalAccessException, InvocationTargetException {
+            writeMethod.invoke(bean, value);
+        }
+    }
+}
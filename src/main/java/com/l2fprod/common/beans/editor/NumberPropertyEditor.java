@@ -47,7 +47,7 @@ public abstract class NumberPropertyEditor extends AbstractPropertyEditor {
         ((JFormattedTextField) editor).setBorder(LookAndFeelTweaks.EMPTY_BORDER);
 
         // use a custom formatter to have numbers with up to 64 decimals
-        NumberFormat format = NumberConverters.DEFAULT_FORMAT;
+        NumberFormat format = (NumberFormat) NumberConverters.DEFAULT_FORMAT.clone();
 
         ((JFormattedTextField) editor).setFormatterFactory(
                 new DefaultFormatterFactory(new NumberFormatter(format))
@@ -80,8 +80,7 @@ public abstract class NumberPropertyEditor extends AbstractPropertyEditor {
         }
 
         try {
-            lastGoodValue = ConverterRegistry.instance().convert(type,
-                    number.toString());
+            lastGoodValue = parse(number);
         } catch (Exception e) {
             UIManager.getLookAndFeel().provideErrorFeedback(editor);
         }
@@ -99,6 +98,26 @@ public abstract class NumberPropertyEditor extends AbstractPropertyEditor {
         lastGoodValue = value;
     }
 
+    /**
+     * Parse the filtered text, without copying it for the primitive wrappers.
+     */
+    private Object parse(CharSequence number) {
+        if (Integer.class.equals(type)) {
+            return ConverterRegistry.parseInt(number);
+        } else if (Double.class.equals(type)) {
+            return ConverterRegistry.parseDouble(number);
+        } else if (Long.class.equals(type)) {
+            return ConverterRegistry.parseLong(number);
+        } else if (Float.class.equals(type)) {
+            return ConverterRegistry.parseFloat(number);
+        } else if (Short.class.equals(type)) {
+            return ConverterRegistry.parseShort(number);
+        } else if (Byte.class.equals(type)) {
+            return ConverterRegistry.parseByte(number);
+        }
+        return ConverterRegistry.instance().convert(type, number.toString());
+    }
+
     private Object getDefaultValue() {
         try {
             return type.getConstructor(new Class[]{String.class}).newInstance(
@@ -22,10 +22,14 @@ import java.io.IOException;
 /**
  * AbstractProperty. <br>
  *
+ * The property is dirty when its value is changed with
+ * {@link #setValue(Object)}. Implementations clear the dirty state once the
+ * value is read from or written to an object.
  */
 public abstract class AbstractProperty implements Property {
 
     private Object value;
+    private boolean dirty;
 
     // PropertyChangeListeners are not serialized.
     private transient PropertyChangeSupport listeners
@@ -52,6 +56,7 @@ public abstract class AbstractProperty implements Property {
         Object oldValue = this.value;
         this.value = value;
         if (value != oldValue && (value == null || !value.equals(oldValue))) {
+            dirty = true;
             firePropertyChange(oldValue, getValue());
         }
     }
@@ -60,6 +65,24 @@ public abstract class AbstractProperty implements Property {
         this.value = value;
     }
 
+    /**
+     * @return true if the value changed since it was last read from or
+     * written to an object.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Sets the dirty state, for instance to discard the changes without
+     * writing them.
+     *
+     * @param dirty true if the value should be written.
+     */
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
     @Override
     public void addPropertyChangeListener(PropertyChangeListener listener) {
         listeners.addPropertyChangeListener(listener);
@@ -176,7 +176,8 @@ public class CellEditorAdapter
     }
 
     private Component getEditor(Object value) {
-        editor.setValue(value);
+        // the editors do not know the mixed value
+        editor.setValue(MixedValue.isMixed(value) ? null : value);
 
         final Component cellEditor = editor.getCustomEditor();
 
@@ -15,10 +15,10 @@
  */
 package com.l2fprod.common.propertysheet;
 
-import com.l2fprod.common.beans.BeanUtils;
+import com.l2fprod.common.beans.BeanAccessors;
+import com.l2fprod.common.beans.PropertyAccessor;
 import java.lang.reflect.InvocationTargetException;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -38,6 +38,7 @@ public class DefaultProperty extends AbstractProperty {
     private String category;
     private Property parent;
     private final List<Property> subProperties = new ArrayList<Property>();
+    private transient BeanAccessors accessors;
 
     @Override
     public String getName() {
@@ -103,9 +104,9 @@ public class DefaultProperty extends AbstractProperty {
     @Override
     public void readFromObject(Object object) {
         try {
-            Method method = BeanUtils.getReadMethod(object.getClass(), getName());
-            if (method != null) {
-                Object value = method.invoke(object);
+            PropertyAccessor accessor = getAccessors(object.getClass()).getAccessor(getName());
+            if (accessor != null && accessor.isReadable()) {
+                Object value = accessor.read(object);
                 initializeValue(value); // avoid updating parent or firing property change
                 if (value != null) {
                     for (Property subProperty : subProperties) {
@@ -113,6 +114,7 @@ public class DefaultProperty extends AbstractProperty {
                     }
                 }
             }
+            setDirty(false);
         } catch (IllegalAccessException e) {
             throw new RuntimeException(e);
         } catch (IllegalArgumentException e) {
@@ -132,10 +134,11 @@ public class DefaultProperty extends AbstractProperty {
     @Override
     public void writeToObject(Object object) {
         try {
-            Method method = BeanUtils.getWriteMethod(object.getClass(), getName());
-            if (method != null) {
-                method.invoke(object, new Object[]{getValue()});
+            PropertyAccessor accessor = getAccessors(object.getClass()).getAccessor(getName());
+            if (accessor != null && accessor.isWritable()) {
+                accessor.write(object, getValue());
             }
+            setDirty(false);
         } catch (IllegalAccessException e) {
             throw new RuntimeException(e);
         } catch (IllegalArgumentException e) {
@@ -145,6 +148,19 @@ public class DefaultProperty extends AbstractProperty {
         }
     }
 
+    /**
+     * Get the accessors of a class, kept while the property reads or writes
+     * objects of that class.
+     */
+    private BeanAccessors getAccessors(Class<?> beanClass) {
+        BeanAccessors current = accessors;
+        if (current == null || current.getBeanClass() != beanClass || !current.isCurrent()) {
+            current = BeanAccessors.forClass(beanClass);
+            accessors = current;
+        }
+        return current;
+    }
+
     /* (non-Javadoc)
      * @see com.l2fprod.common.propertysheet.Property#setValue(java.lang.Object)
      */
@@ -156,6 +172,10 @@ public class DefaultProperty extends AbstractProperty {
             if (parentValue != null) {
                 writeToObject(parentValue);
                 parent.setValue(parentValue);
+                if (parent instanceof AbstractProperty) {
+                    // the change is now in the value of the parent
+                    ((AbstractProperty) parent).setDirty(true);
+                }
             }
         }
         if (value != null) {
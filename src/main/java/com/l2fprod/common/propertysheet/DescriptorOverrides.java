@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.propertysheet;
+
+import com.l2fprod.common.annotations.PropertyEditorOverride;
+import com.l2fprod.common.annotations.PropertyRendererOverride;
+import com.l2fprod.common.beans.ExtendedPropertyDescriptor;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+
+import javax.swing.table.TableCellRenderer;
+
+/**
+ * Editor and renderer overrides of a PropertyDescriptor. <br>
+ *
+ * The annotations are read and the override renderer is instantiated only
+ * once per descriptor, the result is kept as an attribute of the descriptor so
+ * it is shared by all the sheets displaying it.
+ */
+final class DescriptorOverrides {
+
+    private static final String ATTRIBUTE = DescriptorOverrides.class.getName();
+
+    private final Class<?> editorClass;
+    private final Class<?> extendedRendererClass;
+    private final TableCellRenderer renderer;
+
+    /**
+     * Constructor.
+     *
+     * @param descriptor the descriptor to read the overrides from.
+     */
+    private DescriptorOverrides(PropertyDescriptor descriptor) {
+        Method writeMethod = descriptor.getWriteMethod();
+        PropertyEditorOverride editorOverride = writeMethod == null ? null
+                : writeMethod.getAnnotation(PropertyEditorOverride.class);
+        editorClass = editorOverride == null ? null : editorOverride.type();
+
+        extendedRendererClass = getExtendedRendererClass(descriptor);
+        Method readMethod = descriptor.getReadMethod();
+        PropertyRendererOverride rendererOverride = readMethod == null ? null
+                : readMethod.getAnnotation(PropertyRendererOverride.class);
+        if (rendererOverride != null) {
+            renderer = PropertyRendererRegistry.loadRenderer(rendererOverride.type());
+        } else if (extendedRendererClass != null) {
+            renderer = PropertyRendererRegistry.loadRenderer(extendedRendererClass);
+        } else {
+            renderer = null;
+        }
+    }
+
+    /**
+     * Get the overrides of a descriptor, computing them on first access.
+     *
+     * @param descriptor the descriptor.
+     * @return the overrides of the descriptor.
+     */
+    static DescriptorOverrides get(PropertyDescriptor descriptor) {
+        Object value = descriptor.getValue(ATTRIBUTE);
+        if (value instanceof DescriptorOverrides) {
+            DescriptorOverrides overrides = (DescriptorOverrides) value;
+            // the renderer class of an extended descriptor may be changed later
+            if (overrides.extendedRendererClass == getExtendedRendererClass(descriptor)) {
+                return overrides;
+            }
+        }
+        DescriptorOverrides overrides = new DescriptorOverrides(descriptor);
+        descriptor.setValue(ATTRIBUTE, overrides);
+        return overrides;
+    }
+
+    /**
+     * @return the editor class set with {@link PropertyEditorOverride} or null.
+     */
+    Class<?> getEditorClass() {
+        return editorClass;
+    }
+
+    /**
+     * @return the shared renderer set with {@link PropertyRendererOverride} or
+     * {@link ExtendedPropertyDescriptor#setPropertyTableRendererClass(Class)},
+     * null if none.
+     */
+    TableCellRenderer getRenderer() {
+        return renderer;
+    }
+
+    private static Class<?> getExtendedRendererClass(PropertyDescriptor descriptor) {
+        if (descriptor instanceof ExtendedPropertyDescriptor) {
+            return ((ExtendedPropertyDescriptor) descriptor).getPropertyTableRendererClass();
+        }
+        return null;
+    }
+}
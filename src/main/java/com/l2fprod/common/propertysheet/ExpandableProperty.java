@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.propertysheet;
+
+/**
+ * ExpandableProperty. <br>
+ *
+ * A Property whose sub-properties are created when needed, the first time
+ * its row is expanded in the table. Until then
+ * {@link Property#getSubProperties()} returns null. A property dropping its
+ * sub-properties, because its value changed, returns null again before
+ * firing the change of its value, so the table removes their rows.
+ */
+public interface ExpandableProperty extends Property {
+
+    /**
+     * @return true if the property has, or may have once expanded,
+     * sub-properties. Must be cheap, it is called for each row: the
+     * sub-properties are only looked for by {@link #expand()}, which may find
+     * none.
+     */
+    boolean isExpandable();
+
+    /**
+     * Create and read the sub-properties, does nothing if they already
+     * exist.
+     */
+    void expand();
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.propertysheet;
+
+import com.l2fprod.common.util.ResourceManager;
+
+/**
+ * MixedValue. <br>
+ *
+ * The value of a property shared by several objects whose values differ. The
+ * table renders it as text whatever the type of the property, and editors
+ * start from a null value.
+ */
+public final class MixedValue {
+
+    /**
+     * The mixed value.
+     */
+    public static final MixedValue INSTANCE = new MixedValue();
+
+    private MixedValue() {
+    }
+
+    /**
+     * Is the value the mixed value.
+     *
+     * @param value the value.
+     * @return true if the value is {@link #INSTANCE}.
+     */
+    public static boolean isMixed(Object value) {
+        return value == INSTANCE;
+    }
+
+    @Override
+    public String toString() {
+        return ResourceManager.get(PropertySheet.class).getString("MixedValue.text");
+    }
+}
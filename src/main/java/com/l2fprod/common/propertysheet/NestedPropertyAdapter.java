@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.propertysheet;
+
+import com.l2fprod.common.beans.DefaultBeanInfoResolver;
+
+import java.beans.PropertyDescriptor;
+
+/**
+ * NestedPropertyAdapter. <br>
+ *
+ * A PropertyDescriptorAdapter whose bean values get sub-properties, built
+ * from the BeanInfo of the class of the value when the row is expanded.
+ * A value already being expanded above, the root bean included, is not
+ * expanded again, nor are values deeper than the maximum depth. The toggle
+ * is decided from the value alone, the BeanInfo is only looked up on
+ * expansion. The sub-properties are dropped when the value becomes null or
+ * of another class, the next expansion builds those of the new class.
+ *
+ * Editing a sub-property writes it to the value of its parent, which is
+ * then marked dirty.
+ */
+class NestedPropertyAdapter extends PropertyDescriptorAdapter implements ExpandableProperty {
+
+    private final Property parent;
+    private final int depth;
+    private transient Object owner;
+    private transient boolean reading;
+    private Property[] subProperties;
+    private Class<?> expandedClass;
+
+    /**
+     * Constructor.
+     *
+     * @param descriptor the descriptor.
+     * @param parent the parent property, null for a root property.
+     * @param depth the number of levels of sub-properties allowed below this
+     * property.
+     */
+    NestedPropertyAdapter(PropertyDescriptor descriptor, Property parent, int depth) {
+        super(descriptor);
+        this.parent = parent;
+        this.depth = depth;
+    }
+
+    @Override
+    public Object clone() {
+        NestedPropertyAdapter clone = new NestedPropertyAdapter(getDescriptor(), parent, depth);
+        clone.setValue(getValue());
+        return clone;
+    }
+
+    @Override
+    public void readFromObject(Object object) {
+        owner = object;
+        reading = true;
+        try {
+            super.readFromObject(object);
+            Object value = getValue();
+            if (subProperties != null && value != null) {
+                for (Property subProperty : subProperties) {
+                    subProperty.readFromObject(value);
+                }
+            }
+        } finally {
+            reading = false;
+        }
+    }
+
+    @Override
+    protected void firePropertyChange(Object oldValue, Object newValue) {
+        if (subProperties != null && (newValue == null || newValue.getClass() != expandedClass)) {
+            // the sub-properties were those of the previous value
+            subProperties = null;
+            expandedClass = null;
+        }
+        if (!reading) {
+            // edited, the change goes to the value of the parent first
+            Object parentValue = parent == null ? null : parent.getValue();
+            if (parentValue != null) {
+                writeToObject(parentValue);
+                if (parent instanceof AbstractProperty) {
+                    ((AbstractProperty) parent).setDirty(true);
+                }
+            }
+            if (subProperties != null && newValue != null) {
+                for (Property subProperty : subProperties) {
+                    subProperty.readFromObject(newValue);
+                }
+            }
+        }
+        super.firePropertyChange(oldValue, newValue);
+    }
+
+    @Override
+    public Property getParentProperty() {
+        return parent;
+    }
+
+    @Override
+    public Property[] getSubProperties() {
+        return subProperties == null ? null : subProperties.clone();
+    }
+
+    @Override
+    public boolean isExpandable() {
+        if (subProperties != null) {
+            return subProperties.length > 0;
+        }
+        Object value = getValue();
+        return depth > 0 && value != null && isBean(value.getClass()) && !isCycle(value);
+    }
+
+    @Override
+    public void expand() {
+        if (subProperties != null || !isExpandable()) {
+            return;
+        }
+        Object value = getValue();
+        PropertyDescriptor[] descriptors = new DefaultBeanInfoResolver().getBeanInfo(value.getClass())
+                .getPropertyDescriptors();
+        Property[] properties = new Property[descriptors.length];
+        for (int i = 0; i < descriptors.length; i++) {
+            properties[i] = new NestedPropertyAdapter(descriptors[i], this, depth - 1);
+            properties[i].readFromObject(value);
+        }
+        subProperties = properties;
+        expandedClass = value.getClass();
+    }
+
+    /**
+     * Is the value one of the objects the properties above were read from.
+     */
+    private boolean isCycle(Object value) {
+        for (Property p = this; p instanceof NestedPropertyAdapter; p = p.getParentProperty()) {
+            if (((NestedPropertyAdapter) p).owner == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Are the values of the class shown as beans rather than as one value.
+     */
+    private static boolean isBean(Class<?> type) {
+        return !type.isPrimitive()
+                && !type.isArray()
+                && !type.isEnum()
+                && type != MixedValue.class
+                && !type.getName().startsWith("java.")
+                && !type.getName().startsWith("javax.");
+    }
+}
@@ -15,12 +15,14 @@
  */
 package com.l2fprod.common.propertysheet;
 
+import com.l2fprod.common.beans.AccessorStrategy;
+import com.l2fprod.common.beans.BeanAccessors;
 import com.l2fprod.common.beans.ExtendedPropertyDescriptor;
+import com.l2fprod.common.beans.PropertyAccessor;
 
 import java.beans.PropertyDescriptor;
 import java.beans.PropertyVetoException;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 
 /**
  * PropertyDescriptorAdapter.<br>
@@ -29,6 +31,8 @@ import java.lang.reflect.Method;
 class PropertyDescriptorAdapter extends AbstractProperty {
 
     private PropertyDescriptor descriptor;
+    private PropertyAccessor accessor;
+    private AccessorStrategy accessorStrategy;
 
     PropertyDescriptorAdapter() {
         super();
@@ -42,6 +46,7 @@ class PropertyDescriptorAdapter extends AbstractProperty {
 
     public void setDescriptor(PropertyDescriptor descriptor) {
         this.descriptor = descriptor;
+        this.accessor = null;
     }
 
     public PropertyDescriptor getDescriptor() {
@@ -78,10 +83,11 @@ class PropertyDescriptorAdapter extends AbstractProperty {
     @Override
     public void readFromObject(Object object) {
         try {
-            Method method = descriptor.getReadMethod();
-            if (method != null) {
-                setValue(method.invoke(object));
+            PropertyAccessor current = getAccessor();
+            if (current.isReadable()) {
+                setValue(current.read(object));
             }
+            setDirty(false);
         } catch (IllegalAccessException e) {
 //            String message = "Got exception when reading property " + getName();
 //            if (object == null) {
@@ -111,10 +117,10 @@ class PropertyDescriptorAdapter extends AbstractProperty {
 
     @Override
     public void writeToObject(Object object) {
-        Method method = descriptor.getWriteMethod();
-        if (method != null) {
+        PropertyAccessor current = getAccessor();
+        if (current.isWritable()) {
             try {
-                method.invoke(object, new Object[]{getValue()});
+                current.write(object, getValue());
             } catch (IllegalAccessException e) {
                 String message = "Got exception when writing property " + getName();
                 if (object == null) {
@@ -147,6 +153,20 @@ class PropertyDescriptorAdapter extends AbstractProperty {
                 throw new RuntimeException(message, e);
             }
         }
+        setDirty(false);
+    }
+
+    /**
+     * Get the accessor of the descriptor, created once by the strategy of
+     * {@link BeanAccessors}.
+     */
+    private PropertyAccessor getAccessor() {
+        AccessorStrategy strategy = BeanAccessors.getStrategy();
+        if (accessor == null || accessorStrategy != strategy) {
+            accessor = strategy.createAccessor(descriptor.getReadMethod(), descriptor.getWriteMethod());
+            accessorStrategy = strategy;
+        }
+        return accessor;
     }
 
     @Override
@@ -16,15 +16,14 @@
 package com.l2fprod.common.propertysheet;
 
 import com.l2fprod.common.annotations.EditorRegistry;
-import com.l2fprod.common.annotations.PropertyEditorOverride;
+import com.l2fprod.common.util.RegistryMetrics;
+import com.l2fprod.common.util.index.IndexedProvider;
+import com.l2fprod.common.util.index.RegistryIndex;
 import java.beans.PropertyDescriptor;
 import java.beans.PropertyEditor;
 import java.beans.PropertyEditorManager;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.ServiceConfigurationError;
-import java.util.ServiceLoader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,8 +36,10 @@ public final class PropertyEditorRegistry implements PropertyEditorFactory {
 
     private final Map<Class<?>, Object> typeToEditor;
     private final Map<Property, Object> propertyToEditor;
+    private final RegistryMetrics metrics;
 
     private PropertyEditorRegistry() {
+        metrics = new RegistryMetrics(PropertyEditorRegistry.class.getSimpleName());
         typeToEditor = new HashMap<Class<?>, Object>();
         propertyToEditor = new HashMap<Property, Object>();
         registerDefaults();
@@ -76,12 +77,9 @@ public final class PropertyEditorRegistry implements PropertyEditorFactory {
             PropertyDescriptor descriptor = ((PropertyDescriptorAdapter) property).getDescriptor();
             if (descriptor != null) {
                 //allow a per/set property editor override
-                PropertyEditorOverride annotation = descriptor.getWriteMethod().getAnnotation(PropertyEditorOverride.class);
-                if (annotation != null) {
-                    Class<?> clz = annotation.type();
-                    if (clz != null) {
-                        editor = loadPropertyEditor(clz);
-                    }
+                Class<?> override = DescriptorOverrides.get(descriptor).getEditorClass();
+                if (override != null) {
+                    editor = loadPropertyEditor(override);
                 }
                 if (editor == null) {
                     Class<?> clz = descriptor.getPropertyEditorClass();
@@ -105,6 +103,7 @@ public final class PropertyEditorRegistry implements PropertyEditorFactory {
             PropertyDescriptor descriptor = ((PropertyDescriptorAdapter) property).getDescriptor();
             Class<?> clz = descriptor.getPropertyType();
             editor = PropertyEditorManager.findEditor(clz);
+            metrics.fallback(clz);
         }
         return editor;
     }
@@ -128,18 +127,23 @@ public final class PropertyEditorRegistry implements PropertyEditorFactory {
             return null;
         }
         PropertyEditor editor = null;
-        Object value = typeToEditor.get(type);
+        Class<?> key = type;
+        Object value = typeToEditor.get(key);
         if (value == null && type.isEnum()) {
-            value = typeToEditor.get(Enum.class);
+            key = Enum.class;
+            value = typeToEditor.get(key);
         }
+        metrics.lookup(type, value != null);
         if (value instanceof PropertyEditor) {
             editor = (PropertyEditor) value;
         } else if (value instanceof Class<?>) {
+            editor = loadPropertyEditor((Class<?>) value);
+        } else if (value instanceof IndexedProvider) {
             try {
-                editor = (PropertyEditor) ((Class<?>) value).newInstance();
-            } catch (InstantiationException e) {
-                Logger.getLogger(PropertyEditorRegistry.class.getName()).log(Level.SEVERE, null, e);
-            } catch (IllegalAccessException e) {
+                Class<?> clz = ((IndexedProvider) value).getProviderClass();
+                typeToEditor.put(key, clz);
+                editor = loadPropertyEditor(clz);
+            } catch (ClassNotFoundException e) {
                 Logger.getLogger(PropertyEditorRegistry.class.getName()).log(Level.SEVERE, null, e);
             }
         }
@@ -152,10 +156,12 @@ public final class PropertyEditorRegistry implements PropertyEditorFactory {
      * @param clz Class to load from.
      * @return Loaded propertyEditor
      */
-    private PropertyEditor loadPropertyEditor(Class<?> clz) {
+    static PropertyEditor loadPropertyEditor(Class<?> clz) {
         PropertyEditor editor = null;
         try {
+            long start = INSTANCE.metrics.start();
             editor = (PropertyEditor) clz.newInstance();
+            INSTANCE.metrics.instantiated(clz, start);
         } catch (InstantiationException e) {
             Logger.getLogger(PropertyEditorRegistry.class.getName()).log(Level.SEVERE, null, e);
         } catch (IllegalAccessException e) {
@@ -164,6 +170,27 @@ public final class PropertyEditorRegistry implements PropertyEditorFactory {
         return editor;
     }
 
+    /**
+     * Get the lookup metrics of this registry, the editors created by the
+     * scopes of this registry are timed too.
+     *
+     * @return the metrics, disabled by default.
+     */
+    public RegistryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Create a scope holding its own editor overrides on top of a snapshot of
+     * this registry. Editors registered later in this registry are not seen by
+     * the scope.
+     *
+     * @return a new scope.
+     */
+    public synchronized PropertyEditorScope createScope() {
+        return new PropertyEditorScope(null, typeToEditor, propertyToEditor).createScope();
+    }
+
     public synchronized void registerEditor(Class<?> type, Class<? extends PropertyEditor> editorClass) {
         typeToEditor.put(type, editorClass);
     }
@@ -199,21 +226,34 @@ public final class PropertyEditorRegistry implements PropertyEditorFactory {
         typeToEditor.clear();
         propertyToEditor.clear();
 
-        //switch to service loader and use of custom annotation
-        ServiceLoader<PropertyEditor> propertyLoader = ServiceLoader.load(PropertyEditor.class);
-        Iterator<PropertyEditor> controllersIt = propertyLoader.iterator();
-        while (controllersIt.hasNext()) {
-            try {
-                PropertyEditor c = controllersIt.next();
-                EditorRegistry annotation = c.getClass().getAnnotation(EditorRegistry.class);
-                if (annotation != null) {
-                    for (Class<?> clazz : annotation.type()) {
-                        registerEditor(clazz, c.getClass());
+        //switch to service loader and use of custom annotation.
+        //providers listed in the build-time index are only loaded when their
+        //type is first requested, the others are inspected right away.
+        ClassLoader loader = RegistryIndex.getDefaultClassLoader();
+        RegistryIndex index = RegistryIndex.load(PropertyEditor.class, loader);
+        for (String provider : RegistryIndex.getServiceProviders(PropertyEditor.class, loader)) {
+            if (index.contains(provider)) {
+                IndexedProvider indexed = new IndexedProvider(provider, loader);
+                for (String type : index.getTypes(provider)) {
+                    try {
+                        typeToEditor.put(RegistryIndex.loadType(type, loader), indexed);
+                    } catch (ClassNotFoundException ex) {
+                        Logger.getLogger(getClass().getName()).log(Level.WARNING, ex.getMessage(), ex);
                     }
                 }
-          } catch (ServiceConfigurationError serviceError) {
-              Logger.getLogger(getClass().getName()).log(Level.WARNING, serviceError.getMessage(), serviceError);
-           }
+            } else {
+                try {
+                    Class<?> c = Class.forName(provider, false, loader);
+                    EditorRegistry annotation = c.getAnnotation(EditorRegistry.class);
+                    if (annotation != null && PropertyEditor.class.isAssignableFrom(c)) {
+                        for (Class<?> clazz : annotation.type()) {
+                            registerEditor(clazz, c.asSubclass(PropertyEditor.class));
+                        }
+                    }
+                } catch (ClassNotFoundException ex) {
+                    Logger.getLogger(getClass().getName()).log(Level.WARNING, ex.getMessage(), ex);
+                }
+            }
         }
     }
 }
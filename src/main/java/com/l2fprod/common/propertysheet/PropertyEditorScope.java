@@ -0,0 +1,287 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.propertysheet;
+
+import com.l2fprod.common.util.index.IndexedProvider;
+import java.beans.PropertyDescriptor;
+import java.beans.PropertyEditor;
+import java.beans.PropertyEditorManager;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Editor overrides of one or more sheets. <br>
+ *
+ * A scope only holds its own overrides and delegates the other lookups to an
+ * immutable snapshot of its parent, so a sheet can customize its editors
+ * without changing {@link PropertyEditorRegistry#INSTANCE}. Lookups do not
+ * lock, the resolution of each type is cached by the scope.
+ *
+ * Scopes are created with {@link PropertyEditorRegistry#createScope()} or
+ * {@link #createScope()}.
+ */
+public final class PropertyEditorScope implements PropertyEditorFactory {
+
+    /**
+     * Cached resolution of a type without editor.
+     */
+    private static final Object NONE = new Object();
+
+    private final PropertyEditorScope parent;
+    private volatile Overrides overrides;
+
+    /**
+     * Constructor.
+     *
+     * @param parent the snapshot of the parent scope, null for a root.
+     * @param typeToEditor the editors of the types, copied.
+     * @param propertyToEditor the editors of the properties, copied.
+     */
+    PropertyEditorScope(PropertyEditorScope parent, Map<Class<?>, Object> typeToEditor,
+            Map<Property, Object> propertyToEditor) {
+        this(parent, new Overrides(new HashMap<Class<?>, Object>(typeToEditor),
+                new HashMap<Property, Object>(propertyToEditor)));
+    }
+
+    private PropertyEditorScope(PropertyEditorScope parent, Overrides overrides) {
+        this.parent = parent;
+        this.overrides = overrides;
+    }
+
+    /**
+     * Create a child scope on top of a snapshot of this scope. Editors
+     * registered later in this scope are not seen by the child.
+     *
+     * @return a new scope.
+     */
+    public PropertyEditorScope createScope() {
+        return new PropertyEditorScope(new PropertyEditorScope(parent, overrides),
+                new Overrides(new HashMap<Class<?>, Object>(), new HashMap<Property, Object>()));
+    }
+
+    @Override
+    public PropertyEditor createPropertyEditor(Property property) {
+        return getEditor(property);
+    }
+
+    /**
+     * Gets an editor for the given property. The lookup is the same as
+     * {@link PropertyEditorRegistry#getEditor(Property)}, the editors
+     * registered for the property in this scope having precedence over the
+     * ones of the parent.
+     *
+     * @param property
+     * @return an editor suitable for the Property.
+     */
+    public PropertyEditor getEditor(Property property) {
+        PropertyEditor editor = null;
+        if (property instanceof PropertyDescriptorAdapter) {
+            PropertyDescriptor descriptor = ((PropertyDescriptorAdapter) property).getDescriptor();
+            if (descriptor != null) {
+                Class<?> override = DescriptorOverrides.get(descriptor).getEditorClass();
+                if (override != null) {
+                    editor = PropertyEditorRegistry.loadPropertyEditor(override);
+                }
+                if (editor == null) {
+                    Class<?> clz = descriptor.getPropertyEditorClass();
+                    if (clz != null) {
+                        editor = PropertyEditorRegistry.loadPropertyEditor(clz);
+                    }
+                }
+            }
+        }
+        if (editor == null) {
+            Object value = lookup(property);
+            if (value instanceof PropertyEditor) {
+                editor = (PropertyEditor) value;
+            } else if (value instanceof Class<?>) {
+                editor = PropertyEditorRegistry.loadPropertyEditor((Class<?>) value);
+            } else {
+                editor = getEditor(property.getType());
+            }
+        }
+        if ((editor == null) && (property instanceof PropertyDescriptorAdapter)) {
+            PropertyDescriptor descriptor = ((PropertyDescriptorAdapter) property).getDescriptor();
+            editor = PropertyEditorManager.findEditor(descriptor.getPropertyType());
+        }
+        return editor;
+    }
+
+    /**
+     * Gets an editor for the given property type, looking in this scope then
+     * in its parent. Enumerations without a specific editor use the editor of
+     * <code>Enum</code>.
+     *
+     * @param type
+     * @return an editor suitable for the Property type or null if none found
+     */
+    public PropertyEditor getEditor(Class<?> type) {
+        if (type == null) {
+            return null;
+        }
+        Object value = lookup(type);
+        if (value == null && type.isEnum()) {
+            value = lookup(Enum.class);
+        }
+        if (value instanceof PropertyEditor) {
+            return (PropertyEditor) value;
+        } else if (value instanceof Class<?>) {
+            return PropertyEditorRegistry.loadPropertyEditor((Class<?>) value);
+        }
+        return null;
+    }
+
+    /**
+     * Register an editor class for a type in this scope.
+     *
+     * @param type the property type.
+     * @param editorClass the editor class, instantiated for each lookup.
+     */
+    public synchronized void registerEditor(Class<?> type, Class<? extends PropertyEditor> editorClass) {
+        overrides = overrides.withType(type, editorClass);
+    }
+
+    /**
+     * Register an editor for a type in this scope.
+     *
+     * @param type the property type.
+     * @param editor the editor, shared by all the lookups.
+     */
+    public synchronized void registerEditor(Class<?> type, PropertyEditor editor) {
+        overrides = overrides.withType(type, editor);
+    }
+
+    /**
+     * Register an editor class for a property in this scope.
+     *
+     * @param property the property.
+     * @param editorClass the editor class, instantiated for each lookup.
+     */
+    public synchronized void registerEditor(Property property, Class<? extends PropertyEditor> editorClass) {
+        overrides = overrides.withProperty(property, editorClass);
+    }
+
+    /**
+     * Register an editor for a property in this scope.
+     *
+     * @param property the property.
+     * @param editor the editor, shared by all the lookups.
+     */
+    public synchronized void registerEditor(Property property, PropertyEditor editor) {
+        overrides = overrides.withProperty(property, editor);
+    }
+
+    /**
+     * Remove the editor registered for a type in this scope, the editor of the
+     * parent is used again.
+     *
+     * @param type the property type.
+     */
+    public synchronized void unregisterEditor(Class<?> type) {
+        overrides = overrides.withType(type, null);
+    }
+
+    /**
+     * Remove the editor registered for a property in this scope, the editor of
+     * the parent is used again.
+     *
+     * @param property the property.
+     */
+    public synchronized void unregisterEditor(Property property) {
+        overrides = overrides.withProperty(property, null);
+    }
+
+    /**
+     * Find the editor, or editor class, of a property.
+     */
+    private Object lookup(Property property) {
+        Object value = overrides.propertyToEditor.get(property);
+        if (value == null && parent != null) {
+            value = parent.lookup(property);
+        }
+        return value;
+    }
+
+    /**
+     * Find the editor, or editor class, of a type. The result is cached with
+     * the overrides it was computed from.
+     */
+    private Object lookup(Class<?> type) {
+        Overrides current = overrides;
+        Object value = current.resolved.get(type);
+        if (value == null) {
+            value = current.typeToEditor.get(type);
+            if (value instanceof IndexedProvider) {
+                try {
+                    value = ((IndexedProvider) value).getProviderClass();
+                } catch (ClassNotFoundException e) {
+                    Logger.getLogger(PropertyEditorScope.class.getName()).log(Level.SEVERE, null, e);
+                    value = null;
+                }
+            }
+            if (value == null && parent != null) {
+                value = parent.lookup(type);
+            }
+            if (value == null) {
+                value = NONE;
+            }
+            current.resolved.putIfAbsent(type, value);
+        }
+        return value == NONE ? null : value;
+    }
+
+    /**
+     * Immutable overrides of a scope. Registering an editor publishes new
+     * overrides with an empty cache.
+     */
+    private static final class Overrides {
+
+        private final Map<Class<?>, Object> typeToEditor;
+        private final Map<Property, Object> propertyToEditor;
+        private final ConcurrentMap<Class<?>, Object> resolved;
+
+        Overrides(Map<Class<?>, Object> typeToEditor, Map<Property, Object> propertyToEditor) {
+            this.typeToEditor = Collections.unmodifiableMap(typeToEditor);
+            this.propertyToEditor = Collections.unmodifiableMap(propertyToEditor);
+            this.resolved = new ConcurrentHashMap<Class<?>, Object>();
+        }
+
+        Overrides withType(Class<?> type, Object editor) {
+            Map<Class<?>, Object> copy = new HashMap<Class<?>, Object>(typeToEditor);
+            if (editor == null) {
+                copy.remove(type);
+            } else {
+                copy.put(type, editor);
+            }
+            return new Overrides(copy, new HashMap<Property, Object>(propertyToEditor));
+        }
+
+        Overrides withProperty(Property property, Object editor) {
+            Map<Property, Object> copy = new HashMap<Property, Object>(propertyToEditor);
+            if (editor == null) {
+                copy.remove(property);
+            } else {
+                copy.put(property, editor);
+            }
+            return new Overrides(new HashMap<Class<?>, Object>(typeToEditor), copy);
+        }
+    }
+}
@@ -15,16 +15,15 @@
  */
 package com.l2fprod.common.propertysheet;
 
-import com.l2fprod.common.annotations.PropertyRendererOverride;
 import com.l2fprod.common.annotations.RendererRegistry;
-import com.l2fprod.common.beans.ExtendedPropertyDescriptor;
+import com.l2fprod.common.util.RegistryMetrics;
+import com.l2fprod.common.util.index.IndexedProvider;
+import com.l2fprod.common.util.index.RegistryIndex;
 import java.util.HashMap;
 import java.util.Map;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Iterator;
-import java.util.ServiceLoader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,6 +34,11 @@ import javax.swing.table.TableCellRenderer;
  */
 public final class PropertyRendererRegistry implements PropertyRendererFactory {
 
+    /**
+     * Metrics shared by all the renderer registries.
+     */
+    private static final RegistryMetrics METRICS = new RegistryMetrics(PropertyRendererRegistry.class.getSimpleName());
+
     private final Map<Class<?>, Object> typeToRenderer;
 //    private final Map propertyToRenderer;
 
@@ -58,7 +62,7 @@ public final class PropertyRendererRegistry implements PropertyRendererFactory {
      * Gets a renderer for the given property. The lookup is as follow:
      * <ul>
      * <li>if a renderer was registered with
-     * {@link ExtendedPropertyDescriptor#setPropertyTableRendererClass(Class)} -
+     * {@link com.l2fprod.common.beans.ExtendedPropertyDescriptor#setPropertyTableRendererClass(Class)} -
      * BeanInfo, it is returned, else</li>
      * <li>if a renderer was registered with
      * {@link #registerRenderer(Property, TableCellRenderer)}, it is returned,
@@ -79,47 +83,13 @@ public final class PropertyRendererRegistry implements PropertyRendererFactory {
         TableCellRenderer renderer = null;
         if (property instanceof PropertyDescriptorAdapter) {
             PropertyDescriptor descriptor = ((PropertyDescriptorAdapter) property).getDescriptor();
-            Method readMethod = descriptor.getReadMethod();
-            //allow a per/get property renderer override.
-            if (readMethod != null) {
-                PropertyRendererOverride annotation = readMethod.getAnnotation(PropertyRendererOverride.class);
-                if (annotation != null) {
-                    try {
-                        return annotation.type().newInstance();
-                    } catch (InstantiationException ex) {
-                        Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
-                    } catch (IllegalAccessException ex) {
-                        Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
-                    }
-                }
-            }
-            if (descriptor instanceof ExtendedPropertyDescriptor) {
-                if (((ExtendedPropertyDescriptor) descriptor).getPropertyTableRendererClass() != null) {
-                    try {
-                        return (TableCellRenderer) (((ExtendedPropertyDescriptor) descriptor).getPropertyTableRendererClass()).newInstance();
-                    } catch (InstantiationException ex) {
-                        Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
-                    } catch (IllegalAccessException ex) {
-                        Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
-                    }
-                }
+            //allow a per/get property renderer override, resolved once per descriptor.
+            renderer = DescriptorOverrides.get(descriptor).getRenderer();
+            if (renderer != null) {
+                return renderer;
             }
         }
-        Object value = typeToRenderer.get(property.getType());
-        if (value instanceof TableCellRenderer) {
-            renderer = (TableCellRenderer) value;
-        } else if (value instanceof Class<?>) {
-            try {
-                renderer = (TableCellRenderer) ((Class<? extends TableCellRenderer>) value).newInstance();
-            } catch (InstantiationException ex) {
-                Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
-            } catch (IllegalAccessException ex) {
-                Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
-            }
-        } else {
-            renderer = getRenderer(property.getType());
-        }
-        return renderer;
+        return getRenderer(property.getType());
     }
 
     /**
@@ -141,20 +111,96 @@ public final class PropertyRendererRegistry implements PropertyRendererFactory {
     public synchronized TableCellRenderer getRenderer(Class<?> type) {
         TableCellRenderer renderer = null;
         Object value = typeToRenderer.get(type);
+        METRICS.lookup(type, value != null);
         if (value instanceof TableCellRenderer) {
             renderer = (TableCellRenderer) value;
         } else if (value instanceof Class<?>) {
-            try {
-                renderer = (TableCellRenderer) ((Class<? extends TableCellRenderer>) value).newInstance();
-            } catch (InstantiationException ex) {
-                Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
-            } catch (IllegalAccessException ex) {
-                Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
+            renderer = loadRenderer((Class<?>) value);
+        } else if (value instanceof IndexedProvider) {
+            renderer = loadRenderer((IndexedProvider) value);
+            if (renderer != null) {
+                typeToRenderer.put(type, renderer);
             }
         }
         return renderer;
     }
 
+    /**
+     * Create a new renderer.
+     *
+     * @param clz the renderer class.
+     * @return the renderer or null if it can not be created.
+     */
+    static TableCellRenderer loadRenderer(Class<?> clz) {
+        try {
+            long start = METRICS.start();
+            TableCellRenderer renderer = (TableCellRenderer) clz.newInstance();
+            METRICS.instantiated(clz, start);
+            return renderer;
+        } catch (InstantiationException ex) {
+            Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (IllegalAccessException ex) {
+            Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return null;
+    }
+
+    /**
+     * Get the instance of a default renderer, shared by all the types it
+     * registers for.
+     *
+     * @param provider the renderer provider.
+     * @return the renderer or null if it can not be created.
+     */
+    static TableCellRenderer loadRenderer(IndexedProvider provider) {
+        try {
+            long start = provider.hasInstance() ? 0 : METRICS.start();
+            Object instance = provider.getInstance();
+            METRICS.instantiated(instance.getClass(), start);
+            if (instance instanceof TableCellRenderer) {
+                try {
+                    Method m = instance.getClass().getMethod("setShowOddAndEvenRows", boolean.class);
+                    m.invoke(instance, false);
+                } catch (NoSuchMethodException ex) {
+                } catch (SecurityException ex) {
+                } catch (IllegalAccessException ex) {
+                } catch (IllegalArgumentException ex) {
+                } catch (InvocationTargetException ex) {
+                }
+                return (TableCellRenderer) instance;
+            }
+        } catch (ClassNotFoundException ex) {
+            Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (InstantiationException ex) {
+            Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (IllegalAccessException ex) {
+            Logger.getLogger(PropertyRendererRegistry.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return null;
+    }
+
+    /**
+     * Get the lookup metrics of the renderer registries. The metrics are
+     * shared by all the registries, the renderers created by their scopes
+     * are timed too.
+     *
+     * @return the metrics, disabled by default.
+     */
+    public RegistryMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * Create a scope holding its own renderer overrides on top of a snapshot
+     * of this registry. Renderers registered later in this registry are not
+     * seen by the scope.
+     *
+     * @return a new scope.
+     */
+    public synchronized PropertyRendererScope createScope() {
+        return new PropertyRendererScope(null, typeToRenderer).createScope();
+    }
+
     public synchronized void registerRenderer(Class<?> type, Class<? extends TableCellRenderer> rendererClass) {
         typeToRenderer.put(type, rendererClass);
     }
@@ -177,26 +223,27 @@ public final class PropertyRendererRegistry implements PropertyRendererFactory {
     public void registerDefaults() {
         typeToRenderer.clear();
 
-        ServiceLoader<TableCellRenderer> serviceLoader = ServiceLoader.load(TableCellRenderer.class);
-        Iterator<TableCellRenderer> iterator = serviceLoader.iterator();
-        while (iterator.hasNext()) {
-            TableCellRenderer next = iterator.next();
+        //providers are only instantiated when one of their types is first
+        //requested. The build-time index avoids loading the provider classes.
+        ClassLoader loader = RegistryIndex.getDefaultClassLoader();
+        RegistryIndex index = RegistryIndex.load(TableCellRenderer.class, loader);
+        for (String provider : RegistryIndex.getServiceProviders(TableCellRenderer.class, loader)) {
             try {
-                RendererRegistry annotation = next.getClass().getAnnotation(RendererRegistry.class);
-                if (annotation != null) {
-                    for (Class<?> clazz : annotation.type()) {
-                        registerRenderer(clazz, next);
+                IndexedProvider indexed = new IndexedProvider(provider, loader);
+                if (index.contains(provider)) {
+                    for (String type : index.getTypes(provider)) {
+                        typeToRenderer.put(RegistryIndex.loadType(type, loader), indexed);
+                    }
+                } else {
+                    RendererRegistry annotation = Class.forName(provider, false, loader).getAnnotation(RendererRegistry.class);
+                    if (annotation != null) {
+                        for (Class<?> clazz : annotation.type()) {
+                            typeToRenderer.put(clazz, indexed);
+                        }
                     }
                 }
-                Method m = next.getClass().getMethod("setShowOddAndEvenRows", boolean.class);
-                if (m != null) {
-                    m.invoke(next, false);
-                }
-            } catch (NoSuchMethodException ex) {
-            } catch (SecurityException ex) {
-            } catch (IllegalAccessException ex) {
-            } catch (IllegalArgumentException ex) {
-            } catch (InvocationTargetException ex) {
+            } catch (ClassNotFoundException ex) {
+                Logger.getLogger(getClass().getName()).log(Level.WARNING, ex.getMessage(), ex);
             }
         }
     }
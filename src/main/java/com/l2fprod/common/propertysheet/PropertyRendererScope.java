@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.propertysheet;
+
+import com.l2fprod.common.util.index.IndexedProvider;
+import java.beans.PropertyDescriptor;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.swing.table.TableCellRenderer;
+
+/**
+ * Renderer overrides of one or more sheets. <br>
+ *
+ * A scope only holds its own overrides and delegates the other lookups to an
+ * immutable snapshot of its parent. Lookups do not lock, the resolution of
+ * each type is cached by the scope.
+ *
+ * Scopes are created with {@link PropertyRendererRegistry#createScope()} or
+ * {@link #createScope()}.
+ */
+public final class PropertyRendererScope implements PropertyRendererFactory {
+
+    /**
+     * Cached resolution of a type without renderer.
+     */
+    private static final Object NONE = new Object();
+
+    private final PropertyRendererScope parent;
+    private volatile Overrides overrides;
+
+    /**
+     * Constructor.
+     *
+     * @param parent the snapshot of the parent scope, null for a root.
+     * @param typeToRenderer the renderers of the types, copied.
+     */
+    PropertyRendererScope(PropertyRendererScope parent, Map<Class<?>, Object> typeToRenderer) {
+        this(parent, new Overrides(new HashMap<Class<?>, Object>(typeToRenderer)));
+    }
+
+    private PropertyRendererScope(PropertyRendererScope parent, Overrides overrides) {
+        this.parent = parent;
+        this.overrides = overrides;
+    }
+
+    /**
+     * Create a child scope on top of a snapshot of this scope. Renderers
+     * registered later in this scope are not seen by the child.
+     *
+     * @return a new scope.
+     */
+    public PropertyRendererScope createScope() {
+        return new PropertyRendererScope(new PropertyRendererScope(parent, overrides),
+                new Overrides(new HashMap<Class<?>, Object>()));
+    }
+
+    @Override
+    public TableCellRenderer createTableCellRenderer(Property property) {
+        return getRenderer(property);
+    }
+
+    @Override
+    public TableCellRenderer createTableCellRenderer(Class<?> type) {
+        return getRenderer(type);
+    }
+
+    /**
+     * Gets a renderer for the given property. The renderers bound to the
+     * property descriptor have precedence over the renderer of the type.
+     *
+     * @param property
+     * @return a renderer suitable for the Property.
+     */
+    public TableCellRenderer getRenderer(Property property) {
+        if (property instanceof PropertyDescriptorAdapter) {
+            PropertyDescriptor descriptor = ((PropertyDescriptorAdapter) property).getDescriptor();
+            TableCellRenderer renderer = DescriptorOverrides.get(descriptor).getRenderer();
+            if (renderer != null) {
+                return renderer;
+            }
+        }
+        return getRenderer(property.getType());
+    }
+
+    /**
+     * Gets a renderer for the given property type, looking in this scope then
+     * in its parent.
+     *
+     * @param type
+     * @return a renderer suitable for the Property type or null if none found
+     */
+    public TableCellRenderer getRenderer(Class<?> type) {
+        Object value = lookup(type);
+        if (value instanceof TableCellRenderer) {
+            return (TableCellRenderer) value;
+        } else if (value instanceof Class<?>) {
+            return PropertyRendererRegistry.loadRenderer((Class<?>) value);
+        }
+        return null;
+    }
+
+    /**
+     * Register a renderer class for a type in this scope.
+     *
+     * @param type the property type.
+     * @param rendererClass the renderer class, instantiated for each lookup.
+     */
+    public synchronized void registerRenderer(Class<?> type, Class<? extends TableCellRenderer> rendererClass) {
+        overrides = overrides.with(type, rendererClass);
+    }
+
+    /**
+     * Register a renderer for a type in this scope.
+     *
+     * @param type the property type.
+     * @param renderer the renderer, shared by all the lookups.
+     */
+    public synchronized void registerRenderer(Class<?> type, TableCellRenderer renderer) {
+        overrides = overrides.with(type, renderer);
+    }
+
+    /**
+     * Remove the renderer registered for a type in this scope, the renderer of
+     * the parent is used again.
+     *
+     * @param type the property type.
+     */
+    public synchronized void unregisterRenderer(Class<?> type) {
+        overrides = overrides.with(type, null);
+    }
+
+    /**
+     * Find the renderer, or renderer class, of a type. The result is cached
+     * with the overrides it was computed from.
+     */
+    private Object lookup(Class<?> type) {
+        if (type == null) {
+            return null;
+        }
+        Overrides current = overrides;
+        Object value = current.resolved.get(type);
+        if (value == null) {
+            value = current.typeToRenderer.get(type);
+            if (value instanceof IndexedProvider) {
+                value = PropertyRendererRegistry.loadRenderer((IndexedProvider) value);
+            }
+            if (value == null && parent != null) {
+                value = parent.lookup(type);
+            }
+            if (value == null) {
+                value = NONE;
+            }
+            current.resolved.putIfAbsent(type, value);
+        }
+        return value == NONE ? null : value;
+    }
+
+    /**
+     * Immutable overrides of a scope. Registering a renderer publishes new
+     * overrides with an empty cache.
+     */
+    private static final class Overrides {
+
+        private final Map<Class<?>, Object> typeToRenderer;
+        private final ConcurrentMap<Class<?>, Object> resolved;
+
+        Overrides(Map<Class<?>, Object> typeToRenderer) {
+            this.typeToRenderer = Collections.unmodifiableMap(typeToRenderer);
+            this.resolved = new ConcurrentHashMap<Class<?>, Object>();
+        }
+
+        Overrides with(Class<?> type, Object renderer) {
+            Map<Class<?>, Object> copy = new HashMap<Class<?>, Object>(typeToRenderer);
+            if (renderer == null) {
+                copy.remove(type);
+            } else {
+                copy.put(type, renderer);
+            }
+            return new Overrides(copy);
+        }
+    }
+}
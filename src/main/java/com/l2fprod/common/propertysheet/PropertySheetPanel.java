@@ -27,9 +27,14 @@ import java.beans.BeanInfo;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -73,6 +78,10 @@ public class PropertySheetPanel extends JPanel implements PropertySheet, Propert
     private JEditorPane descriptionPanel;
     private JScrollPane descriptionScrollPane;
 
+    private boolean incrementalRead;
+    private boolean reading;
+    private int nestedBeanDepth;
+
     public PropertySheetPanel() {
         this(new PropertySheetTable());
     }
@@ -127,7 +136,9 @@ public class PropertySheetPanel extends JPanel implements PropertySheet, Propert
      */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        repaint();
+        if (!reading) {
+            repaint();
+        }
     }
 
     /**
@@ -188,7 +199,7 @@ public class PropertySheetPanel extends JPanel implements PropertySheet, Propert
     public void setProperties(PropertyDescriptor[] descriptors) {
         Property[] properties = new Property[descriptors.length];
         for (int i = 0, c = descriptors.length; i < c; i++) {
-            properties[i] = new PropertyDescriptorAdapter(descriptors[i]);
+            properties[i] = createProperty(descriptors[i]);
         }
         setProperties(properties);
     }
@@ -199,8 +210,7 @@ public class PropertySheetPanel extends JPanel implements PropertySheet, Propert
     }
 
     public void addProperty(PropertyDescriptor property) {
-        PropertyDescriptorAdapter pda = new PropertyDescriptorAdapter(property);
-        addProperty(pda);
+        addProperty(createProperty(property));
     }
 
     @Override
@@ -221,6 +231,30 @@ public class PropertySheetPanel extends JPanel implements PropertySheet, Propert
         model.addProperty(index, property);
     }
 
+    /**
+     * Adds the properties of the descriptors whose name is not in the sheet
+     * yet, the table is rebuilt once.
+     *
+     * @param descriptors the descriptors.
+     */
+    public void addProperties(PropertyDescriptor[] descriptors) {
+        Property[] current = model.getProperties();
+        Set<String> names = new HashSet<String>();
+        List<Property> properties = new ArrayList<Property>(current.length + descriptors.length);
+        for (Property p : current) {
+            names.add(p.getName());
+            properties.add(p);
+        }
+        for (PropertyDescriptor descriptor : descriptors) {
+            if (names.add(descriptor.getName())) {
+                properties.add(createProperty(descriptor));
+            }
+        }
+        if (properties.size() > current.length) {
+            model.setProperties(properties.toArray(new Property[properties.size()]));
+        }
+    }
+
     @Override
     public void removeProperty(Property property) {
         model.removeProperty(property);
@@ -242,11 +276,17 @@ public class PropertySheetPanel extends JPanel implements PropertySheet, Propert
 
     /**
      * Initializes the PropertySheet from the given object. If any, it cancels
-     * pending edit before proceeding with properties.
+     * pending edit before proceeding with properties, unless the incremental
+     * read is set, see {@link #setIncrementalRead(boolean)}.
      *
      * @param data
      */
     public void readFromObject(Object data) {
+        if (incrementalRead) {
+            readChangesFromObject(data);
+            return;
+        }
+
         // cancel pending edits
         getTable().cancelEditing();
 
@@ -257,6 +297,27 @@ public class PropertySheetPanel extends JPanel implements PropertySheet, Propert
         repaint();
     }
 
+    /**
+     * Sets whether {@link #readFromObject(Object)} only updates what changed.
+     * When set, the rows of the properties whose value is the same are neither
+     * updated nor repainted, and the pending edit is kept unless the value of
+     * the edited property changed. Useful when the same object is read again
+     * and again to refresh the sheet.
+     *
+     * @param incrementalRead true to update the changed properties only.
+     */
+    public void setIncrementalRead(boolean incrementalRead) {
+        this.incrementalRead = incrementalRead;
+    }
+
+    /**
+     * @return true if {@link #readFromObject(Object)} only updates the
+     * properties whose value changed.
+     */
+    public boolean isIncrementalRead() {
+        return incrementalRead;
+    }
+
     /**
      * Writes the PropertySheet to the given object. If any, it commits pending
      * edit before proceeding with properties.
@@ -273,6 +334,58 @@ public class PropertySheetPanel extends JPanel implements PropertySheet, Propert
         }
     }
 
+    /**
+     * Writes the dirty properties of the PropertySheet to the given object, in
+     * the order of {@link #getProperties()}. If any, it commits pending edit
+     * before proceeding with properties. Properties which do not extend
+     * {@link AbstractProperty} are always written.
+     *
+     * @param data the object.
+     * @return the properties written.
+     */
+    public Property[] writeDirtyToObject(Object data) {
+        // ensure pending edits are committed
+        getTable().commitEditing();
+
+        List<Property> written = new ArrayList<Property>();
+        Property[] properties = getProperties();
+        for (int i = 0, c = properties.length; i < c; i++) {
+            if (isDirty(properties[i])) {
+                properties[i].writeToObject(data);
+                setClean(properties[i]);
+                written.add(properties[i]);
+            }
+        }
+        return written.toArray(new Property[written.size()]);
+    }
+
+    /**
+     * @return the properties changed since they were last read or written, in
+     * the order of {@link #getProperties()}.
+     */
+    public Property[] getDirtyProperties() {
+        List<Property> dirty = new ArrayList<Property>();
+        Property[] properties = getProperties();
+        for (int i = 0, c = properties.length; i < c; i++) {
+            if (isDirty(properties[i])) {
+                dirty.add(properties[i]);
+            }
+        }
+        return dirty.toArray(new Property[dirty.size()]);
+    }
+
+    /**
+     * Clears the dirty state of the properties and their sub-properties, the
+     * changes made so far are not written by
+     * {@link #writeDirtyToObject(Object)}.
+     */
+    public void clearDirty() {
+        Property[] properties = getProperties();
+        for (int i = 0, c = properties.length; i < c; i++) {
+            setClean(properties[i]);
+        }
+    }
+
     public void addPropertySheetChangeListener(PropertyChangeListener listener) {
         model.addPropertyChangeListener(listener);
     }
@@ -421,6 +534,121 @@ public class PropertySheetPanel extends JPanel implements PropertySheet, Propert
         model.setToggleStates(toggleStates);
     }
 
+    /**
+     * Sets how deep the values of the properties created from descriptors are
+     * shown as beans. When positive, a property whose value is a bean gets
+     * sub-properties, created and read when its row is first expanded. Applies
+     * to the properties added afterwards.
+     *
+     * @param depth the number of levels of sub-properties, 0 for none.
+     */
+    public void setNestedBeanDepth(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("depth must not be negative");
+        }
+        this.nestedBeanDepth = depth;
+    }
+
+    /**
+     * @return the number of levels of sub-properties of bean values.
+     */
+    public int getNestedBeanDepth() {
+        return nestedBeanDepth;
+    }
+
+    private Property createProperty(PropertyDescriptor descriptor) {
+        if (nestedBeanDepth > 0) {
+            return new NestedPropertyAdapter(descriptor, null, nestedBeanDepth);
+        }
+        return new PropertyDescriptorAdapter(descriptor);
+    }
+
+    /**
+     * Reads the properties and updates the rows of the ones which changed.
+     * The table cancels the pending edit when the edited row is updated.
+     */
+    private void readChangesFromObject(Object data) {
+        Map<Property, Object> oldValues = new IdentityHashMap<Property, Object>();
+        Property[] properties = model.getProperties();
+        for (int i = 0, c = properties.length; i < c; i++) {
+            getValues(properties[i], oldValues);
+        }
+
+        reading = true;
+        try {
+            for (int i = 0, c = properties.length; i < c; i++) {
+                properties[i].readFromObject(data);
+            }
+        } finally {
+            reading = false;
+        }
+
+        int first = -1;
+        for (int row = 0, c = model.getRowCount(); row <= c; row++) {
+            boolean changed = row < c && isChanged(model.getPropertySheetElement(row), oldValues);
+            if (changed && first < 0) {
+                first = row;
+            } else if (!changed && first >= 0) {
+                model.fireTableRowsUpdated(first, row - 1);
+                first = -1;
+            }
+        }
+    }
+
+    /**
+     * Is the property or one of its sub-properties dirty.
+     */
+    private static boolean isDirty(Property property) {
+        if (!(property instanceof AbstractProperty) || ((AbstractProperty) property).isDirty()) {
+            return true;
+        }
+        Property[] subProperties = property.getSubProperties();
+        if (subProperties != null) {
+            for (int i = 0; i < subProperties.length; i++) {
+                if (isDirty(subProperties[i])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void setClean(Property property) {
+        if (property instanceof AbstractProperty) {
+            ((AbstractProperty) property).setDirty(false);
+        }
+        Property[] subProperties = property.getSubProperties();
+        if (subProperties != null) {
+            for (int i = 0; i < subProperties.length; i++) {
+                setClean(subProperties[i]);
+            }
+        }
+    }
+
+    private static void getValues(Property property, Map<Property, Object> values) {
+        values.put(property, property.getValue());
+        Property[] subProperties = property.getSubProperties();
+        if (subProperties != null) {
+            for (int i = 0; i < subProperties.length; i++) {
+                getValues(subProperties[i], values);
+            }
+        }
+    }
+
+    private static boolean isChanged(PropertySheetTableModel.Item item, Map<Property, Object> oldValues) {
+        if (!item.isProperty()) {
+            return false;
+        }
+        Property property = item.getProperty();
+        if (!oldValues.containsKey(property)) {
+            // sub-property created by the read
+            return true;
+        }
+        Object oldValue = oldValues.get(property);
+        Object value = property.getValue();
+        return value != oldValue && (value == null || !value.equals(oldValue));
+    }
+
     private void buildUI() {
         LookAndFeelTweaks.setBorderLayout(this);
         LookAndFeelTweaks.setBorder(this);
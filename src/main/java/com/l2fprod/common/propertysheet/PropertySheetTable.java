@@ -375,8 +375,16 @@ public class PropertySheetTable extends JTable {
 
                 // property value column gets the renderer from the factory
                 Property property = item.getProperty();
+                if (MixedValue.isMixed(property.getValue())) {
+                    // the renderers of the type do not know the mixed value
+                    return super.getDefaultRenderer(Object.class);
+                }
                 TableCellRenderer renderer = getRendererFactory().createTableCellRenderer(property);
                 if (renderer == null) {
+                    // the renderer of a superclass, or the Object renderer, is used
+                    if (getRendererFactory() instanceof PropertyRendererRegistry) {
+                        ((PropertyRendererRegistry) getRendererFactory()).getMetrics().fallback(property.getType());
+                    }
                     renderer = getCellRenderer(property.getType());
                 }
                 return renderer;
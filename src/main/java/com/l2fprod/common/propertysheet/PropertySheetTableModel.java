@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +57,7 @@ public class PropertySheetTableModel
     private Comparator categorySortingComparator;
     private Comparator propertySortingComparator;
     private Map<String, Boolean> toggleStates;
+    private Map<Property, Item> expandedItems;
 
     public PropertySheetTableModel() {
         model = new ArrayList<Item>();
@@ -66,6 +68,7 @@ public class PropertySheetTableModel
         sortingProperties = false;
         restoreToggleStates = false;
         toggleStates = new HashMap<String, Boolean>();
+        expandedItems = new IdentityHashMap<Property, Item>();
     }
 
     /* (non-Javadoc)
@@ -408,6 +411,11 @@ public class PropertySheetTableModel
 
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
+        Item expanded = expandedItems.get(evt.getSource());
+        if (expanded != null && expanded.getProperty().getSubProperties() == null) {
+            // the sub-properties were dropped with the previous value
+            collapse(expanded);
+        }
         // forward the event to registered listeners
         listeners.firePropertyChange(evt);
     }
@@ -442,6 +450,7 @@ public class PropertySheetTableModel
 
     private void buildModel() {
         model.clear();
+        expandedItems.clear();
 
         if (properties != null && properties.size() > 0) {
             List<Property> sortedProperties = sortProperties(properties);
@@ -514,16 +523,46 @@ public class PropertySheetTableModel
      * @param parent the {@link Item} parent of these properties, null if none
      */
     private void addPropertiesToModel(List<Property> localProperties, Item parent) {
+        addItems(model, localProperties, parent);
+    }
+
+    private void addItems(List<Item> items, List<Property> localProperties, Item parent) {
         for (Property property : localProperties) {
             Item propertyItem = new Item(property, parent);
-            model.add(propertyItem);
+            items.add(propertyItem);
 
             // add any sub-properties
             Property[] subProperties = property.getSubProperties();
             if (subProperties != null && subProperties.length > 0) {
-                addPropertiesToModel(Arrays.asList(subProperties), propertyItem);
+                if (property instanceof ExpandableProperty) {
+                    expandedItems.put(property, propertyItem);
+                }
+                addItems(items, Arrays.asList(subProperties), propertyItem);
+            }
+        }
+    }
+
+    /**
+     * Removes the rows below an expandable property, whose sub-properties
+     * are gone, and collapses it.
+     */
+    private void collapse(Item expanded) {
+        for (Iterator<Item> it = model.iterator(); it.hasNext();) {
+            Item item = it.next();
+            Item parent = item.getParent();
+            while (parent != null && parent != expanded) {
+                parent = parent.getParent();
+            }
+            if (parent != null) {
+                item.getProperty().removePropertyChangeListener(this);
+                expandedItems.remove(item.getProperty());
+                it.remove();
             }
         }
+        expandedItems.remove(expanded.getProperty());
+        expanded.setVisible(false);
+        visibilityChanged(false);
+        fireTableDataChanged();
     }
 
     /**
@@ -593,23 +632,47 @@ public class PropertySheetTableModel
         }
 
         public boolean hasToggle() {
+            if (property instanceof ExpandableProperty) {
+                // depends on the value, sub-properties created on first expansion
+                return ((ExpandableProperty) property).isExpandable();
+            }
             return hasToggle;
         }
 
         public void toggle() {
             if (hasToggle()) {
                 visible = !visible;
+                if (visible && property instanceof ExpandableProperty && property.getSubProperties() == null) {
+                    expand();
+                }
                 visibilityChanged(false);
                 fireTableDataChanged();
             }
         }
 
+        /**
+         * Creates the sub-properties and their rows, after this one.
+         */
+        private void expand() {
+            ((ExpandableProperty) property).expand();
+            Property[] subProperties = property.getSubProperties();
+            if (subProperties != null && subProperties.length > 0) {
+                for (Property subProperty : subProperties) {
+                    subProperty.addPropertyChangeListener(PropertySheetTableModel.this);
+                }
+                List<Item> items = new ArrayList<Item>();
+                addItems(items, Arrays.asList(subProperties), this);
+                model.addAll(model.indexOf(this) + 1, items);
+                expandedItems.put(property, this);
+            }
+        }
+
         public void setVisible(final boolean visible) {
             this.visible = visible;
         }
 
         public boolean isVisible() {
-            return (parent == null || parent.isVisible()) && (!hasToggle || visible);
+            return (parent == null || parent.isVisible()) && (!hasToggle() || visible);
         }
 
         public String getKey() {
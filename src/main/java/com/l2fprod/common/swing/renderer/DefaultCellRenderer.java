@@ -120,7 +120,11 @@ public class DefaultCellRenderer
             return null;
         }
         Converter converter = ConverterRegistry.instance().getConverter(String.class, value.getClass()); //.convert(String.class, value);
-        return (converter == null) ? value.toString() : (String) converter.convert(String.class, value);
+        if (converter == null) {
+            ConverterRegistry.instance().getMetrics().fallback(value.getClass());
+            return value.toString();
+        }
+        return (String) converter.convert(String.class, value);
     }
 
     protected Icon convertToIcon(Object value) {
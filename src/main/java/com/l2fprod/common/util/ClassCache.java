@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Values computed once per class. <br>
+ *
+ * Lookups do not lock. The value of a class is computed by the first thread
+ * asking for it, the other threads asking meanwhile wait for that value. A
+ * computation asking for the value it is computing fails with an
+ * IllegalStateException instead of waiting for itself.
+ * Classes are compared by identity, classes of the same name from different
+ * class loaders have their own value.
+ *
+ * The values are stored with their class through a {@link ClassValue}: they
+ * are kept as long as the class, and the cache does not keep the classes nor
+ * their class loaders alive, so plugins can be unloaded.
+ *
+ * @param <V> the type of the values.
+ */
+public abstract class ClassCache<V> {
+
+    /**
+     * Stored value of a class computed as null.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * The state of each class: null, the computation in progress or the
+     * value.
+     */
+    private volatile ClassValue<AtomicReference<Object>> values;
+
+    /**
+     * Constructor.
+     */
+    protected ClassCache() {
+        values = newValues();
+    }
+
+    /**
+     * Compute the value of a class, called once per class unless the value
+     * was removed.
+     *
+     * @param type the class.
+     * @return the value, may be null.
+     */
+    protected abstract V computeValue(Class<?> type);
+
+    /**
+     * Get the value of a class, computed on first use.
+     *
+     * @param type the class.
+     * @return the value.
+     */
+    public V get(final Class<?> type) {
+        AtomicReference<Object> entry = values.get(type);
+        while (true) {
+            Object stored = entry.get();
+            if (stored instanceof Pending) {
+                if (((Pending) stored).owner == Thread.currentThread()) {
+                    throw new IllegalStateException("Recursive computation of the value of " + type.getName());
+                }
+                return await((Pending) stored);
+            }
+            if (stored != null) {
+                return unwrap(stored);
+            }
+            Pending task = new Pending(this, type);
+            if (entry.compareAndSet(null, task)) {
+                task.run();
+                try {
+                    V value = await(task);
+                    entry.compareAndSet(task, wrap(value));
+                    return value;
+                } catch (RuntimeException ex) {
+                    entry.compareAndSet(task, null);
+                    throw ex;
+                } catch (Error ex) {
+                    entry.compareAndSet(task, null);
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the value of a class if it is computed.
+     *
+     * @param type the class.
+     * @return the value, null if none.
+     */
+    public V getIfPresent(Class<?> type) {
+        Object stored = values.get(type).get();
+        return stored == null || stored instanceof Pending ? null : unwrap(stored);
+    }
+
+    /**
+     * Set the value of a class, replacing the computed one.
+     *
+     * @param type the class.
+     * @param value the value.
+     */
+    public void put(Class<?> type, V value) {
+        values.get(type).set(wrap(value));
+    }
+
+    /**
+     * Remove the value of a class, it is computed again on next use.
+     *
+     * @param type the class.
+     */
+    public void remove(Class<?> type) {
+        values.get(type).set(null);
+    }
+
+    /**
+     * Remove all the values.
+     */
+    public void clear() {
+        values = newValues();
+    }
+
+    private static ClassValue<AtomicReference<Object>> newValues() {
+        return new ClassValue<AtomicReference<Object>>() {
+            @Override
+            protected AtomicReference<Object> computeValue(Class<?> type) {
+                return new AtomicReference<Object>();
+            }
+        };
+    }
+
+    private static Object wrap(Object value) {
+        return value == null ? NULL : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V unwrap(Object stored) {
+        return stored == NULL ? null : (V) stored;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V await(Pending task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return (V) task.get();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) ex.getCause();
+                    }
+                    if (ex.getCause() instanceof Error) {
+                        throw (Error) ex.getCause();
+                    }
+                    throw new IllegalStateException(ex.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Computation of a value in progress, run by the thread creating it.
+     */
+    private static final class Pending extends FutureTask<Object> {
+
+        private final Thread owner = Thread.currentThread();
+
+        Pending(final ClassCache<?> cache, final Class<?> type) {
+            super(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return cache.computeValue(type);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lookup and provider instantiation metrics of a registry. <br>
+ *
+ * Metrics are disabled by default and cost a single volatile read per
+ * lookup until they are enabled with {@link #setEnabled(boolean)}, or for all
+ * the registries with the <code>l2fprod.metrics</code> system property. When
+ * enabled, the lookups, hits, misses and fallbacks are counted per type and
+ * the instantiation of each provider is timed. Providers slower to create
+ * than the threshold are logged.
+ */
+public final class RegistryMetrics {
+
+    /**
+     * Default slow provider threshold, in milliseconds.
+     */
+    public static final long DEFAULT_SLOW_THRESHOLD = 50;
+
+    /**
+     * System property enabling the metrics of all the registries.
+     */
+    public static final String ENABLED_PROPERTY = "l2fprod.metrics";
+
+    private final String name;
+    private final ConcurrentMap<Class<?>, Counter> counters;
+    private final ConcurrentMap<Class<?>, Timer> timers;
+    private volatile boolean enabled;
+    private volatile long slowThreshold;
+
+    /**
+     * Constructor.
+     *
+     * @param name the name of the registry, used when logging.
+     */
+    public RegistryMetrics(String name) {
+        this.name = name;
+        this.counters = new ConcurrentHashMap<Class<?>, Counter>();
+        this.timers = new ConcurrentHashMap<Class<?>, Timer>();
+        this.slowThreshold = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_THRESHOLD);
+        this.enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * @return the name of the registry.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true if the metrics are recorded.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable the metrics, the recorded values are kept.
+     *
+     * @param enabled true to record the metrics.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the slow provider threshold, in milliseconds.
+     */
+    public long getSlowThreshold() {
+        return TimeUnit.NANOSECONDS.toMillis(slowThreshold);
+    }
+
+    /**
+     * Set the time above which the instantiation of a provider is logged.
+     *
+     * @param millis the threshold, in milliseconds.
+     */
+    public void setSlowThreshold(long millis) {
+        this.slowThreshold = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Record a lookup.
+     *
+     * @param type the type looked up.
+     * @param hit true if the registry had an entry for the type.
+     */
+    public void lookup(Class<?> type, boolean hit) {
+        if (enabled && type != null) {
+            Counter counter = getCounter(type);
+            counter.lookups.incrementAndGet();
+            if (hit) {
+                counter.hits.incrementAndGet();
+            } else {
+                counter.misses.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Record a fallback to a provider not known by the registry.
+     *
+     * @param type the type without entry in the registry.
+     */
+    public void fallback(Class<?> type) {
+        if (enabled && type != null) {
+            getCounter(type).fallbacks.incrementAndGet();
+        }
+    }
+
+    /**
+     * Start timing a provider instantiation.
+     *
+     * @return the value to give to {@link #instantiated(Class, long)}.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record the instantiation of a provider, logging it if slow.
+     *
+     * @param provider the provider class.
+     * @param start the value returned by {@link #start()}.
+     */
+    public void instantiated(Class<?> provider, long start) {
+        if (!enabled || start == 0 || provider == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        Timer timer = timers.get(provider);
+        if (timer == null) {
+            timer = new Timer();
+            Timer existing = timers.putIfAbsent(provider, timer);
+            if (existing != null) {
+                timer = existing;
+            }
+        }
+        timer.record(elapsed);
+        if (elapsed > slowThreshold) {
+            Logger.getLogger(RegistryMetrics.class.getName()).log(Level.WARNING,
+                    "{0}: {1} took {2} ms to create",
+                    new Object[]{name, provider.getName(), TimeUnit.NANOSECONDS.toMillis(elapsed)});
+        }
+    }
+
+    /**
+     * Get a copy of the recorded metrics.
+     *
+     * @return the snapshot.
+     */
+    public Snapshot getSnapshot() {
+        Map<Class<?>, TypeStatistics> types = new HashMap<Class<?>, TypeStatistics>();
+        for (Map.Entry<Class<?>, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            types.put(entry.getKey(), new TypeStatistics(counter.lookups.get(), counter.hits.get(),
+                    counter.misses.get(), counter.fallbacks.get()));
+        }
+        Map<Class<?>, ProviderStatistics> providers = new HashMap<Class<?>, ProviderStatistics>();
+        for (Map.Entry<Class<?>, Timer> entry : timers.entrySet()) {
+            Timer timer = entry.getValue();
+            providers.put(entry.getKey(), new ProviderStatistics(timer.count.get(),
+                    timer.total.get(), timer.max.get()));
+        }
+        return new Snapshot(name, types, providers);
+    }
+
+    /**
+     * Clear the recorded metrics.
+     */
+    public void reset() {
+        counters.clear();
+        timers.clear();
+    }
+
+    private Counter getCounter(Class<?> type) {
+        Counter counter = counters.get(type);
+        if (counter == null) {
+            counter = new Counter();
+            Counter existing = counters.putIfAbsent(type, counter);
+            if (existing != null) {
+                counter = existing;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Lookup counts of a type.
+     */
+    private static final class Counter {
+
+        private final AtomicLong lookups = new AtomicLong();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong fallbacks = new AtomicLong();
+    }
+
+    /**
+     * Instantiation times of a provider.
+     */
+    private static final class Timer {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long elapsed) {
+            count.incrementAndGet();
+            total.addAndGet(elapsed);
+            long current = max.get();
+            while (elapsed > current && !max.compareAndSet(current, elapsed)) {
+                current = max.get();
+            }
+        }
+    }
+
+    /**
+     * Recorded metrics of a registry.
+     */
+    public static final class Snapshot {
+
+        private final String name;
+        private final Map<Class<?>, TypeStatistics> types;
+        private final Map<Class<?>, ProviderStatistics> providers;
+
+        Snapshot(String name, Map<Class<?>, TypeStatistics> types, Map<Class<?>, ProviderStatistics> providers) {
+            this.name = name;
+            this.types = Collections.unmodifiableMap(types);
+            this.providers = Collections.unmodifiableMap(providers);
+        }
+
+        /**
+         * @return the name of the registry.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the lookup statistics of each type looked up.
+         */
+        public Map<Class<?>, TypeStatistics> getTypes() {
+            return types;
+        }
+
+        /**
+         * @return the instantiation statistics of each provider created.
+         */
+        public Map<Class<?>, ProviderStatistics> getProviders() {
+            return providers;
+        }
+
+        /**
+         * Get the statistics of a type.
+         *
+         * @param type the type.
+         * @return the statistics, all zero if the type was not looked up.
+         */
+        public TypeStatistics getType(Class<?> type) {
+            TypeStatistics statistics = types.get(type);
+            return statistics == null ? new TypeStatistics(0, 0, 0, 0) : statistics;
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + types + " " + providers;
+        }
+    }
+
+    /**
+     * Lookup statistics of a type.
+     */
+    public static final class TypeStatistics {
+
+        private final long lookups;
+        private final long hits;
+        private final long misses;
+        private final long fallbacks;
+
+        TypeStatistics(long lookups, long hits, long misses, long fallbacks) {
+            this.lookups = lookups;
+            this.hits = hits;
+            this.misses = misses;
+            this.fallbacks = fallbacks;
+        }
+
+        /**
+         * @return the number of lookups.
+         */
+        public long getLookups() {
+            return lookups;
+        }
+
+        /**
+         * @return the number of lookups finding an entry.
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return the number of lookups without entry.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return the number of times a provider outside of the registry was
+         * used.
+         */
+        public long getFallbacks() {
+            return fallbacks;
+        }
+
+        @Override
+        public String toString() {
+            return "lookups=" + lookups + ", hits=" + hits + ", misses=" + misses + ", fallbacks=" + fallbacks;
+        }
+    }
+
+    /**
+     * Instantiation statistics of a provider.
+     */
+    public static final class ProviderStatistics {
+
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        ProviderStatistics(long count, long totalNanos, long maxNanos) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * @return the number of instances created.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the total instantiation time, in nanoseconds.
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return the longest instantiation time, in nanoseconds.
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", total=" + totalNanos + "ns, max=" + maxNanos + "ns";
+        }
+    }
+}
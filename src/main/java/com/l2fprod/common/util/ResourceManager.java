@@ -16,18 +16,34 @@
 package com.l2fprod.common.util;
 
 import java.text.MessageFormat;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Manages application resources. <br>
+ *
+ * The managers are cached per bundle name and default locale, missing
+ * bundles included. Each manager knows the keys of its bundle, so
+ * {@link #find(Class)} and {@link #findString(String)} tell a missing
+ * resource without throwing a MissingResourceException.
  */
 public final class ResourceManager {
 
-    static Map<String, ResourceManager> nameToRM = new HashMap<String, ResourceManager>();
+    /**
+     * Cached lookup of a missing bundle.
+     */
+    private static final Object MISSING = new Object();
+
+    private static final ConcurrentMap<String, Object> BUNDLES = new ConcurrentHashMap<String, Object>();
 
     private final ResourceBundle bundle;
+    private final Set<String> keys;
 
     /**
      * Can't be directly constructed.
@@ -36,6 +52,7 @@ public final class ResourceManager {
      */
     private ResourceManager(ResourceBundle bundle) {
         this.bundle = bundle;
+        this.keys = Collections.unmodifiableSet(new HashSet<String>(bundle.keySet()));
     }
 
     /**
@@ -59,15 +76,50 @@ public final class ResourceManager {
      * @return the ResourceManager with the given name.
      */
     public static ResourceManager get(String bundleName) {
-        ResourceManager rm = (ResourceManager) nameToRM.get(bundleName);
+        ResourceManager rm = find(bundleName);
         if (rm == null) {
-            ResourceBundle rb = ResourceBundle.getBundle(bundleName);
-            rm = new ResourceManager(rb);
-            nameToRM.put(bundleName, rm);
+            throw new MissingResourceException("Can't find bundle for base name " + bundleName
+                    + ", locale " + Locale.getDefault(), bundleName + "_" + Locale.getDefault(), "");
         }
         return rm;
     }
 
+    /**
+     * Finds the ResourceManager associated with <code>clazz</code>, as
+     * {@link #get(Class)} without throwing.
+     *
+     * @param clazz
+     * @return the ResourceManager or null if the class has no bundle.
+     */
+    public static ResourceManager find(Class<?> clazz) {
+        return find(clazz.getName() + "RB");
+    }
+
+    /**
+     * Finds the ResourceManager with the given name, as
+     * {@link #get(String)} without throwing.
+     *
+     * @param bundleName
+     * @return the ResourceManager or null if there is no such bundle.
+     */
+    public static ResourceManager find(String bundleName) {
+        Locale locale = Locale.getDefault();
+        String cacheKey = bundleName + "_" + locale;
+        Object rm = BUNDLES.get(cacheKey);
+        if (rm == null) {
+            try {
+                rm = new ResourceManager(ResourceBundle.getBundle(bundleName, locale));
+            } catch (MissingResourceException e) {
+                rm = MISSING;
+            }
+            Object existing = BUNDLES.putIfAbsent(cacheKey, rm);
+            if (existing != null) {
+                rm = existing;
+            }
+        }
+        return rm == MISSING ? null : (ResourceManager) rm;
+    }
+
     /**
      * @param clazz
      * @return the "AllRB" in the class package
@@ -146,6 +198,27 @@ public final class ResourceManager {
         return MessageFormat.format(value, args);
     }
 
+    /**
+     * Is there a resource for <code>key</code> in the bundle or its parents.
+     *
+     * @param key the key to lookup
+     * @return true if the key has a resource.
+     */
+    public boolean containsKey(String key) {
+        return keys.contains(key);
+    }
+
+    /**
+     * Finds the String associated with <code>key</code>, as
+     * {@link #getString(String)} without throwing if there is none.
+     *
+     * @param key the key to lookup
+     * @return the String associated with <code>key</code> or null.
+     */
+    public String findString(String key) {
+        return keys.contains(key) ? getString(key) : null;
+    }
+
     /**
      * Gets the first character of the String associated with <code>key</code>.
      *
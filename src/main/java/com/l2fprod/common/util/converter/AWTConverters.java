@@ -20,7 +20,6 @@ import java.awt.Font;
 import java.awt.Insets;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.util.StringTokenizer;
 
 import javax.swing.plaf.DimensionUIResource;
 import javax.swing.plaf.FontUIResource;
@@ -95,27 +94,13 @@ public class AWTConverters implements Converter {
     public Object convert(Class<?> type, Object value) {
         if (String.class.equals(type)) {
             if (value instanceof Rectangle) {
-                return ((Rectangle) value).getX()
-                        + " "
-                        + ((Rectangle) value).getY()
-                        + " "
-                        + ((Rectangle) value).getWidth()
-                        + " "
-                        + ((Rectangle) value).getHeight();
+                return appendTo(new StringBuilder(), (Rectangle) value).toString();
             } else if (value instanceof Insets) {
-                return ((Insets) value).top
-                        + " "
-                        + ((Insets) value).left
-                        + " "
-                        + ((Insets) value).bottom
-                        + " "
-                        + ((Insets) value).right;
+                return appendTo(new StringBuilder(), (Insets) value).toString();
             } else if (value instanceof Dimension) {
-                return ((Dimension) value).getWidth()
-                        + " x "
-                        + ((Dimension) value).getHeight();
-            } else if (Point.class.equals(value.getClass())) {
-                return ((Point) value).getX() + " " + ((Point) value).getY();
+                return appendTo(new StringBuilder(), (Dimension) value).toString();
+            } else if (value instanceof Point) {
+                return appendTo(new StringBuilder(), (Point) value).toString();
             } else if (value instanceof Font) {
                 return ((Font) value).getFontName()
                         + ", "
@@ -125,18 +110,19 @@ public class AWTConverters implements Converter {
             }
         }
 
-        if (value instanceof String) {
+        if (value instanceof CharSequence) {
+            CharSequence text = (CharSequence) value;
             if (Rectangle.class.equals(type)) {
-                double[] values = convert((String) value, 4, " ");
-                if (values == null) {
+                double[] values = new double[4];
+                if (!scan(text, ' ', values)) {
                     throw new IllegalArgumentException("Invalid format");
                 }
                 Rectangle rect = new Rectangle();
                 rect.setFrame(values[0], values[1], values[2], values[3]);
                 return rect;
             } else if (Insets.class.equals(type)) {
-                double[] values = convert((String) value, 4, " ");
-                if (values == null) {
+                double[] values = new double[4];
+                if (!scan(text, ' ', values)) {
                     throw new IllegalArgumentException("Invalid format");
                 }
                 return new Insets(
@@ -145,16 +131,16 @@ public class AWTConverters implements Converter {
                         (int) values[2],
                         (int) values[3]);
             } else if (Dimension.class.equals(type)) {
-                double[] values = convert((String) value, 2, "x");
-                if (values == null) {
+                double[] values = new double[2];
+                if (!scan(text, 'x', values)) {
                     throw new IllegalArgumentException("Invalid format");
                 }
                 Dimension dim = new Dimension();
                 dim.setSize(values[0], values[1]);
                 return dim;
             } else if (Point.class.equals(type)) {
-                double[] values = convert((String) value, 2, " ");
-                if (values == null) {
+                double[] values = new double[2];
+                if (!scan(text, ' ', values)) {
                     throw new IllegalArgumentException("Invalid format");
                 }
                 Point p = new Point();
@@ -165,20 +151,97 @@ public class AWTConverters implements Converter {
         return null;
     }
 
-    private double[] convert(String text, int tokenCount, String delimiters) {
-        StringTokenizer tokenizer = new StringTokenizer(text, delimiters);
-        if (tokenizer.countTokens() != tokenCount) {
-            return null;
-        }
+    /**
+     * Append a rectangle as "x y width height".
+     *
+     * @param builder the builder to append to.
+     * @param rect the rectangle.
+     * @return the builder.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, Rectangle rect) {
+        return builder.append(rect.getX())
+                .append(' ').append(rect.getY())
+                .append(' ').append(rect.getWidth())
+                .append(' ').append(rect.getHeight());
+    }
+
+    /**
+     * Append insets as "top left bottom right".
+     *
+     * @param builder the builder to append to.
+     * @param insets the insets.
+     * @return the builder.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, Insets insets) {
+        return builder.append(insets.top)
+                .append(' ').append(insets.left)
+                .append(' ').append(insets.bottom)
+                .append(' ').append(insets.right);
+    }
+
+    /**
+     * Append a dimension as "width x height".
+     *
+     * @param builder the builder to append to.
+     * @param dim the dimension.
+     * @return the builder.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, Dimension dim) {
+        return builder.append(dim.getWidth()).append(" x ").append(dim.getHeight());
+    }
+
+    /**
+     * Append a point as "x y".
+     *
+     * @param builder the builder to append to.
+     * @param p the point.
+     * @return the builder.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, Point p) {
+        return builder.append(p.getX()).append(' ').append(p.getY());
+    }
 
+    /**
+     * Parse the numbers of a text in a single pass, without creating the
+     * tokens. Numbers are separated by one or more delimiters and may be
+     * surrounded by white spaces.
+     *
+     * @param text the text.
+     * @param delimiter the delimiter.
+     * @param values the array receiving the numbers, its length is the
+     * expected count.
+     * @return false if the count does not match or a number is invalid.
+     */
+    private static boolean scan(CharSequence text, char delimiter, double[] values) {
+        int length = text.length();
+        int count = 0;
+        int ii = 0;
         try {
-            double[] values = new double[tokenCount];
-            for (int i = 0; tokenizer.hasMoreTokens(); i++) {
-                values[i] = Double.parseDouble(tokenizer.nextToken());
+            while (true) {
+                while (ii < length && text.charAt(ii) == delimiter) {
+                    ii++;
+                }
+                if (ii == length) {
+                    return count == values.length;
+                }
+                int start = ii;
+                while (ii < length && text.charAt(ii) != delimiter) {
+                    ii++;
+                }
+                int end = ii;
+                while (start < end && text.charAt(start) <= ' ') {
+                    start++;
+                }
+                while (end > start && text.charAt(end - 1) <= ' ') {
+                    end--;
+                }
+                if (count == values.length || start == end) {
+                    return false;
+                }
+                values[count++] = PrimitiveParser.parseDouble(text, start, end);
             }
-            return values;
-        } catch (Exception e) {
-            return null;
+        } catch (NumberFormatException e) {
+            return false;
         }
     }
 
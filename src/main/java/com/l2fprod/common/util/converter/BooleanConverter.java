@@ -33,7 +33,8 @@ public class BooleanConverter implements Converter {
         if (String.class.equals(type) && Boolean.class.equals(value.getClass())) {
             return String.valueOf(value);
         } else if (boolean.class.equals(type) || Boolean.class.equals(type)) {
-            return Boolean.valueOf(String.valueOf(value));
+            return Boolean.valueOf(ConverterRegistry.parseBoolean(
+                    value instanceof CharSequence ? (CharSequence) value : String.valueOf(value)));
         } else {
             throw new IllegalArgumentException("Can't convert " + value + " to "
                     + type.getName());
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util.converter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conversion through a chain of registered converters. <br>
+ *
+ * {@link #find(Map, Class, Class)} looks for the shortest chain of
+ * converters between two types, through conversions which do not lose data:
+ * <ul>
+ * <li>The converters registered for the superclasses and interfaces of the
+ * source type apply to it, so a subclass of Rectangle uses the Rectangle
+ * converters. The converters of Number do not: they read the value through a
+ * primitive and would narrow the subclasses they do not know, such as
+ * BigInteger, BigDecimal or AtomicLong.</li>
+ * <li>The types in the middle of a chain use their own converters only, and
+ * are never converted to one of their supertypes: String to Integer to
+ * Number would parse any number as an Integer.</li>
+ * <li>A chain never goes through String: the text of a value parsed as
+ * another type is not a conversion of the value, Integer to String to
+ * Boolean would turn any number into false.</li>
+ * </ul>
+ */
+final class ChainedConverter implements Converter {
+
+    private final Converter[] converters;
+    private final Class<?>[] types;
+
+    /**
+     * Constructor.
+     *
+     * @param converters the converters, in order.
+     * @param types the type each converter converts to.
+     */
+    private ChainedConverter(Converter[] converters, Class<?>[] types) {
+        this.converters = converters;
+        this.types = types;
+    }
+
+    /**
+     * Find the shortest chain of converters between two types.
+     *
+     * @param fromMap the registered converters.
+     * @param from the type to convert from.
+     * @param to the type to convert to.
+     * @return the converter, the registered one if the chain has a single
+     * converter, or null if there is no chain.
+     */
+    static Converter find(Map<Class<?>, Map<Class<?>, Converter>> fromMap, Class<?> from, Class<?> to) {
+        // breadth first, each converter of the chain counts for one
+        Map<Class<?>, Step> reached = new HashMap<Class<?>, Step>();
+        reached.put(from, null);
+        LinkedList<Class<?>> queue = new LinkedList<Class<?>>();
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            Class<?> type = queue.removeFirst();
+            Set<Class<?>> sources = type == from ? getHierarchy(type) : Collections.<Class<?>>singleton(type);
+            for (Class<?> source : sources) {
+                Map<Class<?>, Converter> toMap = fromMap.get(source);
+                if (toMap == null || (source != type && source == Number.class)) {
+                    continue;
+                }
+                for (Map.Entry<Class<?>, Converter> entry : toMap.entrySet()) {
+                    Class<?> next = entry.getKey();
+                    if (next != to && next == String.class) {
+                        continue;
+                    }
+                    if (type != from && next.isAssignableFrom(type)) {
+                        continue;
+                    }
+                    if (!reached.containsKey(next)) {
+                        reached.put(next, new Step(type, entry.getValue()));
+                        if (next == to) {
+                            return build(reached, to);
+                        }
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object convert(Class<?> targetType, Object value) {
+        Object result = value;
+        int last = converters.length - 1;
+        for (int ii = 0; ii < last && result != null; ii++) {
+            result = converters[ii].convert(types[ii], result);
+        }
+        return result == null ? null : converters[last].convert(targetType, result);
+    }
+
+    @Override
+    public void register(Registry registry) {
+        // found by the registry, never registered
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Class<?> type : types) {
+            builder.append(builder.length() == 0 ? "" : " -> ").append(type.getName());
+        }
+        return builder.toString();
+    }
+
+    private static Converter build(Map<Class<?>, Step> reached, Class<?> to) {
+        List<Converter> converters = new ArrayList<Converter>();
+        List<Class<?>> types = new ArrayList<Class<?>>();
+        Class<?> type = to;
+        Step step = reached.get(type);
+        while (step != null) {
+            converters.add(0, step.converter);
+            types.add(0, type);
+            type = step.from;
+            step = reached.get(type);
+        }
+        if (converters.size() == 1) {
+            return converters.get(0);
+        }
+        return new ChainedConverter(converters.toArray(new Converter[converters.size()]),
+                types.toArray(new Class<?>[types.size()]));
+    }
+
+    /**
+     * Get a type, its superclasses then its interfaces.
+     */
+    private static Set<Class<?>> getHierarchy(Class<?> type) {
+        Set<Class<?>> hierarchy = new LinkedHashSet<Class<?>>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            hierarchy.add(c);
+        }
+        List<Class<?>> classes = new ArrayList<Class<?>>(hierarchy);
+        for (int ii = 0; ii < classes.size(); ii++) {
+            for (Class<?> i : classes.get(ii).getInterfaces()) {
+                if (hierarchy.add(i)) {
+                    classes.add(i);
+                }
+            }
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Conversion reaching a type.
+     */
+    private static final class Step {
+
+        private final Class<?> from;
+        private final Converter converter;
+
+        Step(Class<?> from, Converter converter) {
+            this.from = from;
+            this.converter = converter;
+        }
+    }
+}
@@ -15,65 +15,139 @@
  */
 package com.l2fprod.common.util.converter;
 
+import com.l2fprod.common.util.RegistryMetrics;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
- * ConverterRegistry.
+ * ConverterRegistry. <br>
+ *
+ * A conversion without registered converter is resolved through the
+ * superclasses and interfaces of the source type and through chains of
+ * registered converters, the shortest chain is used. A type is never
+ * converted to itself through other types, and conversions which may lose
+ * data are not resolved: the Number converters do not apply to other
+ * subclasses of Number, and chains do not go through the text of a value.
+ * Resolutions, failed ones included, are cached until a converter is added.
+ *
+ * As the built-in converters all convert to or from String, chains only
+ * join converters registered by the application between other types: the
+ * stock registry does not convert an Integer to a Dimension through its
+ * text, such a conversion needs its own converter.
+ *
+ * The converters are held in an immutable table replaced as a whole when a
+ * converter is added, lookups do not lock and always see a consistent table.
  */
 public final class ConverterRegistry implements Registry {
 
+    /**
+     * Number of values converted by each task of a parallel bulk conversion.
+     */
+    public static final int BULK_CHUNK_SIZE = 8192;
+
+    /**
+     * Cached resolution of a conversion without converter.
+     */
+    private static final Object NONE = new Object();
+
     private static final ConverterRegistry SHARED_INSTANCE = new ConverterRegistry();
-    private final Map<Class<?>, Map<Class<?>, Converter>> fromMap;
+    private final RegistryMetrics metrics;
+    private volatile Table table;
 
     /**
-     * Constructor.
+     * Constructor, use {@link #instance()} outside of this package.
      */
-    private ConverterRegistry() {
+    ConverterRegistry() {
         //use ServiceLoader to get instances of Converter classes.
         //force them to register w/ this class.
-        fromMap = new HashMap<Class<?>, Map<Class<?>, Converter>>();
+        table = new Table(new HashMap<Class<?>, Map<Class<?>, Converter>>());
+        metrics = new RegistryMetrics(ConverterRegistry.class.getSimpleName());
         ServiceLoader<Converter> loader = ServiceLoader.load(Converter.class);
         Iterator<Converter> iterator = loader.iterator();
         while (iterator.hasNext()) {
-            iterator.next().register((Registry) this);
+            long start = metrics.start();
+            Converter converter = iterator.next();
+            metrics.instantiated(converter.getClass(), start);
+            converter.register((Registry) this);
         }
     }
 
     /**
-     * Converter calls this method to register conversion path.
+     * Converter calls this method to register conversion path. The table
+     * is copied, lookups in progress keep using the previous one.
      *
      * @param from
      * @param to
      * @param converter
      */
     @Override
-    public void addConverter(Class<?> from, Class<?> to, Converter converter) {
-        Map toMap = fromMap.get(from);
-        if (toMap == null) {
-            toMap = new HashMap<Class<?>, Map<Class<?>, Converter>>();
-            fromMap.put(from, toMap);
-        }
+    public synchronized void addConverter(Class<?> from, Class<?> to, Converter converter) {
+        Map<Class<?>, Map<Class<?>, Converter>> fromMap
+                = new HashMap<Class<?>, Map<Class<?>, Converter>>(table.fromMap);
+        Map<Class<?>, Converter> toMap = fromMap.get(from);
+        toMap = toMap == null ? new HashMap<Class<?>, Converter>() : new HashMap<Class<?>, Converter>(toMap);
         toMap.put(to, converter);
+        fromMap.put(from, Collections.unmodifiableMap(toMap));
+        table = new Table(fromMap);
     }
 
     /**
-     * Get the desired converter.
+     * Get the desired converter, the registered one or else a converter
+     * resolved through the type hierarchy of <code>from</code> and chains of
+     * registered converters.
      *
      * @param from
      * @param to
-     * @return
+     * @return the converter or null if there is no conversion.
      */
     @Override
     public Converter getConverter(Class<?> from, Class<?> to) {
-        Map<Class<?>, Converter> toMap = fromMap.get(from);
-        if (toMap != null) {
-            return toMap.get(to);
-        } else {
-            return null;
+        Table current = table;
+        Map<Class<?>, Converter> toMap = current.fromMap.get(from);
+        Converter converter = toMap == null ? null : toMap.get(to);
+        if (converter == null && from != null && to != null) {
+            converter = resolve(current, from, to);
         }
+        metrics.lookup(to, converter != null);
+        return converter;
+    }
+
+    /**
+     * Find the shortest chain of converters, once per pair of types and
+     * table.
+     */
+    private static Converter resolve(Table current, Class<?> from, Class<?> to) {
+        ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Object>> cache = current.resolved;
+        ConcurrentMap<Class<?>, Object> toCache = cache.get(from);
+        if (toCache == null) {
+            toCache = new ConcurrentHashMap<Class<?>, Object>();
+            ConcurrentMap<Class<?>, Object> existing = cache.putIfAbsent(from, toCache);
+            if (existing != null) {
+                toCache = existing;
+            }
+        }
+        Object value = toCache.get(to);
+        if (value == null) {
+            value = ChainedConverter.find(current.fromMap, from, to);
+            if (value == null) {
+                value = NONE;
+            }
+            toCache.putIfAbsent(to, value);
+        }
+        return value == NONE ? null : (Converter) value;
     }
 
     /**
@@ -97,6 +171,349 @@ public final class ConverterRegistry implements Registry {
         }
     }
 
+    /**
+     * Convert an array of values. The converter is looked up once per run of
+     * values of the same class, null values stay null.
+     *
+     * @param <T> the target type.
+     * @param targetType the target type, not a primitive type.
+     * @param values the values.
+     * @return a new array of the converted values.
+     * @throws IllegalArgumentException if a value has no converter.
+     */
+    public <T> T[] convertAll(Class<T> targetType, Object[] values) {
+        return convertAll(targetType, values, newArray(targetType, values.length));
+    }
+
+    /**
+     * Convert an array of values into a given array.
+     *
+     * @param <T> the target type.
+     * @param targetType the target type, not a primitive type.
+     * @param values the values.
+     * @param result the array receiving the converted values, at the same
+     * indexes.
+     * @return the result array.
+     * @throws IllegalArgumentException if a value has no converter or the
+     * result array is too short.
+     */
+    public <T> T[] convertAll(Class<T> targetType, Object[] values, T[] result) {
+        checkBulk(targetType, values.length, result);
+        convertRange(targetType, values, result, 0, values.length);
+        return result;
+    }
+
+    /**
+     * Convert an array of values into a given array, in parallel. The values
+     * are split in chunks of {@link #BULK_CHUNK_SIZE} converted by the
+     * executor, the last one by the calling thread. Fewer values than two
+     * chunks are converted by the calling thread only.
+     *
+     * @param <T> the target type.
+     * @param targetType the target type, not a primitive type.
+     * @param values the values.
+     * @param result the array receiving the converted values, at the same
+     * indexes.
+     * @param executor the executor running the chunks.
+     * @return the result array.
+     * @throws IllegalArgumentException if a value has no converter or the
+     * result array is too short.
+     */
+    public <T> T[] convertAll(final Class<T> targetType, final Object[] values, final T[] result,
+            ExecutorService executor) {
+        checkBulk(targetType, values.length, result);
+        if (values.length < 2 * BULK_CHUNK_SIZE) {
+            convertRange(targetType, values, result, 0, values.length);
+            return result;
+        }
+        int last = values.length - values.length % BULK_CHUNK_SIZE;
+        if (last == values.length) {
+            last -= BULK_CHUNK_SIZE;
+        }
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int start = 0; start < last; start += BULK_CHUNK_SIZE) {
+            final int from = start;
+            futures.add(executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    convertRange(targetType, values, result, from, from + BULK_CHUNK_SIZE);
+                    return null;
+                }
+            }));
+        }
+        RuntimeException failure = null;
+        try {
+            convertRange(targetType, values, result, last, values.length);
+        } catch (RuntimeException ex) {
+            failure = ex;
+        } finally {
+            waitFor(futures, failure);
+        }
+        return result;
+    }
+
+    /**
+     * Convert a sequence of values. The converter is looked up once per run
+     * of values of the same class, null values stay null.
+     *
+     * @param <T> the target type.
+     * @param targetType the target type, not a primitive type.
+     * @param values the values.
+     * @return a new list of the converted values, in iteration order.
+     * @throws IllegalArgumentException if a value has no converter.
+     */
+    public <T> List<T> convertAll(Class<T> targetType, Iterable<?> values) {
+        checkTarget(targetType);
+        List<T> result = values instanceof Collection
+                ? new ArrayList<T>(((Collection<?>) values).size())
+                : new ArrayList<T>();
+        Class<?> type = null;
+        Converter converter = null;
+        for (Object value : values) {
+            if (value == null) {
+                result.add(null);
+                continue;
+            }
+            if (value.getClass() != type) {
+                type = value.getClass();
+                converter = getBulkConverter(type, targetType);
+            }
+            result.add(targetType.cast(converter.convert(targetType, value)));
+        }
+        return result;
+    }
+
+    private <T> void convertRange(Class<T> targetType, Object[] values, T[] result, int from, int to) {
+        Class<?> type = null;
+        Converter converter = null;
+        for (int ii = from; ii < to; ii++) {
+            Object value = values[ii];
+            if (value == null) {
+                result[ii] = null;
+                continue;
+            }
+            if (value.getClass() != type) {
+                type = value.getClass();
+                converter = getBulkConverter(type, targetType);
+            }
+            result[ii] = targetType.cast(converter.convert(targetType, value));
+        }
+    }
+
+    private Converter getBulkConverter(Class<?> from, Class<?> to) {
+        Converter converter = getConverter(from, to);
+        if (converter == null) {
+            throw new IllegalArgumentException("No converter from " + from + " to " + to.getName());
+        }
+        return converter;
+    }
+
+    private static void checkBulk(Class<?> targetType, int length, Object[] result) {
+        checkTarget(targetType);
+        if (result.length < length) {
+            throw new IllegalArgumentException("Result array too short");
+        }
+    }
+
+    private static void checkTarget(Class<?> targetType) {
+        if (targetType.isPrimitive()) {
+            throw new IllegalArgumentException("Primitive target type " + targetType.getName());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newArray(Class<T> type, int length) {
+        checkTarget(type);
+        return (T[]) Array.newInstance(type, length);
+    }
+
+    /**
+     * Wait for the chunks of a parallel conversion, rethrowing the failure of
+     * the calling thread if any, else the first failure of the chunks.
+     */
+    private static void waitFor(List<Future<?>> futures, RuntimeException callerFailure) {
+        RuntimeException failure = callerFailure;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new IllegalStateException("Interrupted", ex);
+                }
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof Error) {
+                    throw (Error) ex.getCause();
+                }
+                if (failure == null) {
+                    failure = ex.getCause() instanceof RuntimeException
+                            ? (RuntimeException) ex.getCause()
+                            : new IllegalStateException(ex.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Get the lookup metrics of this registry, lookups are counted per target
+     * type. Converters are created with the registry, so their instantiation
+     * is only timed when the metrics are enabled by the
+     * <code>l2fprod.metrics</code> system property.
+     *
+     * @return the metrics, disabled by default.
+     */
+    public RegistryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Create a scope holding its own converters on top of a snapshot of this
+     * registry. Converters added later to this registry are not seen by the
+     * scope.
+     *
+     * @return a new scope.
+     */
+    public ConverterScope createScope() {
+        return new ConverterScope(null, table.fromMap).createScope();
+    }
+
+    /**
+     * Parse an int without boxing nor copying the text.
+     *
+     * @param text the text, as accepted by {@link Integer#parseInt(String)}.
+     * @return the value.
+     * @throws NumberFormatException if the text is not an int.
+     */
+    public static int parseInt(CharSequence text) {
+        return PrimitiveParser.parseInt(text);
+    }
+
+    /**
+     * Parse a long without boxing nor copying the text.
+     *
+     * @param text the text, as accepted by {@link Long#parseLong(String)}.
+     * @return the value.
+     * @throws NumberFormatException if the text is not a long.
+     */
+    public static long parseLong(CharSequence text) {
+        return PrimitiveParser.parseLong(text);
+    }
+
+    /**
+     * Parse a short without boxing nor copying the text.
+     *
+     * @param text the text, as accepted by {@link Short#parseShort(String)}.
+     * @return the value.
+     * @throws NumberFormatException if the text is not a short.
+     */
+    public static short parseShort(CharSequence text) {
+        return PrimitiveParser.parseShort(text);
+    }
+
+    /**
+     * Parse a byte without boxing nor copying the text.
+     *
+     * @param text the text, as accepted by {@link Byte#parseByte(String)}.
+     * @return the value.
+     * @throws NumberFormatException if the text is not a byte.
+     */
+    public static byte parseByte(CharSequence text) {
+        return PrimitiveParser.parseByte(text);
+    }
+
+    /**
+     * Parse a double without boxing. Plain decimal numbers are parsed without
+     * copying the text.
+     *
+     * @param text the text, as accepted by {@link Double#parseDouble(String)}.
+     * @return the value.
+     * @throws NumberFormatException if the text is not a double.
+     */
+    public static double parseDouble(CharSequence text) {
+        return PrimitiveParser.parseDouble(text);
+    }
+
+    /**
+     * Parse a float without boxing. Plain decimal numbers are parsed without
+     * copying the text.
+     *
+     * @param text the text, as accepted by {@link Float#parseFloat(String)}.
+     * @return the value.
+     * @throws NumberFormatException if the text is not a float.
+     */
+    public static float parseFloat(CharSequence text) {
+        return PrimitiveParser.parseFloat(text);
+    }
+
+    /**
+     * Parse a boolean without copying the text.
+     *
+     * @param text the text.
+     * @return true if the text is "true", ignoring case, as
+     * {@link Boolean#parseBoolean(String)}.
+     */
+    public static boolean parseBoolean(CharSequence text) {
+        return PrimitiveParser.parseBoolean(text);
+    }
+
+    /**
+     * Append an int, as {@link String#valueOf(int)} formats it.
+     *
+     * @param builder the builder to append to.
+     * @param value the value.
+     * @return the builder.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, int value) {
+        return builder.append(value);
+    }
+
+    /**
+     * Append a long, as {@link String#valueOf(long)} formats it.
+     *
+     * @param builder the builder to append to.
+     * @param value the value.
+     * @return the builder.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, long value) {
+        return builder.append(value);
+    }
+
+    /**
+     * Append a double, as {@link String#valueOf(double)} formats it.
+     *
+     * @param builder the builder to append to.
+     * @param value the value.
+     * @return the builder.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, double value) {
+        return builder.append(value);
+    }
+
+    /**
+     * Append a float, as {@link String#valueOf(float)} formats it.
+     *
+     * @param builder the builder to append to.
+     * @param value the value.
+     * @return the builder.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, float value) {
+        return builder.append(value);
+    }
+
+    /**
+     * Append a boolean, as {@link String#valueOf(boolean)} formats it.
+     *
+     * @param builder the builder to append to.
+     * @param value the value.
+     * @return the builder.
+     */
+    public static StringBuilder appendTo(StringBuilder builder, boolean value) {
+        return builder.append(value);
+    }
+
     /**
      * Get the instance.
      *
@@ -105,4 +522,19 @@ public final class ConverterRegistry implements Registry {
     public static ConverterRegistry instance() {
         return SHARED_INSTANCE;
     }
+
+    /**
+     * Immutable converters of the registry with the cache of the conversions
+     * resolved from them.
+     */
+    private static final class Table {
+
+        private final Map<Class<?>, Map<Class<?>, Converter>> fromMap;
+        private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Object>> resolved;
+
+        Table(Map<Class<?>, Map<Class<?>, Converter>> fromMap) {
+            this.fromMap = Collections.unmodifiableMap(fromMap);
+            this.resolved = new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, Object>>();
+        }
+    }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util.converter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Converter overrides on top of an immutable snapshot of a parent registry.
+ * <br>
+ *
+ * A scope only holds the converters added to it, other conversions are
+ * delegated to its parent. Lookups do not lock, the resolution of each
+ * conversion is cached by the scope.
+ *
+ * Scopes are created with {@link ConverterRegistry#createScope()} or
+ * {@link #createScope()}.
+ */
+public final class ConverterScope implements Registry {
+
+    /**
+     * Cached resolution of a conversion without converter.
+     */
+    private static final Object NONE = new Object();
+
+    private final ConverterScope parent;
+    private volatile Overrides overrides;
+
+    /**
+     * Constructor.
+     *
+     * @param parent the snapshot of the parent scope, null for a root.
+     * @param fromMap the converters, copied.
+     */
+    ConverterScope(ConverterScope parent, Map<Class<?>, Map<Class<?>, Converter>> fromMap) {
+        this(parent, new Overrides(copy(fromMap)));
+    }
+
+    private ConverterScope(ConverterScope parent, Overrides overrides) {
+        this.parent = parent;
+        this.overrides = overrides;
+    }
+
+    /**
+     * Create a child scope on top of a snapshot of this scope. Converters
+     * added later to this scope are not seen by the child.
+     *
+     * @return a new scope.
+     */
+    public ConverterScope createScope() {
+        return new ConverterScope(new ConverterScope(parent, overrides),
+                new Overrides(new HashMap<Class<?>, Map<Class<?>, Converter>>()));
+    }
+
+    /**
+     * Add a converter to this scope, it has precedence over the converter of
+     * the parent for the same conversion.
+     *
+     * @param from
+     * @param to
+     * @param converter
+     */
+    @Override
+    public synchronized void addConverter(Class<?> from, Class<?> to, Converter converter) {
+        Map<Class<?>, Map<Class<?>, Converter>> fromMap = copy(overrides.fromMap);
+        Map<Class<?>, Converter> toMap = fromMap.get(from);
+        toMap = toMap == null ? new HashMap<Class<?>, Converter>() : new HashMap<Class<?>, Converter>(toMap);
+        toMap.put(to, converter);
+        fromMap.put(from, Collections.unmodifiableMap(toMap));
+        overrides = new Overrides(fromMap);
+    }
+
+    /**
+     * Get the converter of this scope, or of its parent.
+     *
+     * @param from
+     * @param to
+     * @return the converter or null if none.
+     */
+    @Override
+    public Converter getConverter(Class<?> from, Class<?> to) {
+        Object value = lookup(from, to);
+        return value == NONE ? null : (Converter) value;
+    }
+
+    /**
+     * Do Conversion.
+     *
+     * @param targetType
+     * @param value
+     * @return the converted value.
+     */
+    public Object convert(Class<?> targetType, Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        Converter converter = getConverter(value.getClass(), targetType);
+        if (converter == null) {
+            throw new IllegalArgumentException(
+                    "No converter from " + value.getClass() + " to " + targetType.getName());
+        } else {
+            return converter.convert(targetType, value);
+        }
+    }
+
+    /**
+     * Find the converter of a conversion, NONE if there is none. Like the
+     * registry, the conversion is resolved through the type hierarchy and
+     * chains of converters. The result is cached with the overrides it was
+     * computed from.
+     */
+    private Object lookup(Class<?> from, Class<?> to) {
+        Overrides current = overrides;
+        ConcurrentMap<Class<?>, Object> resolved = current.resolved.get(from);
+        if (resolved == null) {
+            resolved = new ConcurrentHashMap<Class<?>, Object>();
+            ConcurrentMap<Class<?>, Object> existing = current.resolved.putIfAbsent(from, resolved);
+            if (existing != null) {
+                resolved = existing;
+            }
+        }
+        Object value = resolved.get(to);
+        if (value == null) {
+            value = ChainedConverter.find(getGraph(current), from, to);
+            if (value == null) {
+                value = NONE;
+            }
+            resolved.putIfAbsent(to, value);
+        }
+        return value;
+    }
+
+    /**
+     * Get the converters of this scope merged with the ones of its parent,
+     * computed once per overrides.
+     */
+    private Map<Class<?>, Map<Class<?>, Converter>> getGraph(Overrides current) {
+        Map<Class<?>, Map<Class<?>, Converter>> graph = current.graph;
+        if (graph == null) {
+            graph = new HashMap<Class<?>, Map<Class<?>, Converter>>();
+            if (parent != null) {
+                graph.putAll(parent.getGraph(parent.overrides));
+            }
+            for (Map.Entry<Class<?>, Map<Class<?>, Converter>> entry : current.fromMap.entrySet()) {
+                Map<Class<?>, Converter> toMap = graph.get(entry.getKey());
+                toMap = toMap == null ? new HashMap<Class<?>, Converter>() : new HashMap<Class<?>, Converter>(toMap);
+                toMap.putAll(entry.getValue());
+                graph.put(entry.getKey(), toMap);
+            }
+            current.graph = graph;
+        }
+        return graph;
+    }
+
+    /**
+     * Copy the converters, the nested maps are made read-only.
+     */
+    private static Map<Class<?>, Map<Class<?>, Converter>> copy(Map<Class<?>, Map<Class<?>, Converter>> fromMap) {
+        Map<Class<?>, Map<Class<?>, Converter>> copy = new HashMap<Class<?>, Map<Class<?>, Converter>>();
+        for (Map.Entry<Class<?>, Map<Class<?>, Converter>> entry : fromMap.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<Class<?>, Converter>(entry.getValue())));
+        }
+        return copy;
+    }
+
+    /**
+     * Immutable converters of a scope. Adding a converter publishes new
+     * overrides with an empty cache. The merged graph is built on first
+     * resolution, concurrent builds give the same graph.
+     */
+    private static final class Overrides {
+
+        private final Map<Class<?>, Map<Class<?>, Converter>> fromMap;
+        private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Object>> resolved;
+        private volatile Map<Class<?>, Map<Class<?>, Converter>> graph;
+
+        Overrides(Map<Class<?>, Map<Class<?>, Converter>> fromMap) {
+            this.fromMap = Collections.unmodifiableMap(fromMap);
+            this.resolved = new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, Object>>();
+        }
+    }
+}
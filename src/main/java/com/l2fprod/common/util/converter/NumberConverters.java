@@ -15,27 +15,42 @@
  */
 package com.l2fprod.common.util.converter;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.text.NumberFormat;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * Convert to and from numbers.
  */
 public class NumberConverters implements Converter {
 
+    /**
+     * The default format, up to 64 integer and fraction digits. NumberFormat
+     * is not thread-safe, the converters format with their own copy.
+     */
     public static final NumberFormat DEFAULT_FORMAT;
 
-    private NumberFormat format;
+    //indexes of the types in the conversion matrix.
+    private static final int NOT_A_NUMBER = -1;
+    private static final int NUMBER = 0;
+    private static final int DOUBLE = 1;
+    private static final int FLOAT = 2;
+    private static final int INTEGER = 3;
+    private static final int LONG = 4;
+    private static final int SHORT = 5;
+    private static final int BYTE = 6;
+
+    private final ThreadSafeNumberFormat format;
 
     public NumberConverters() {
         this(DEFAULT_FORMAT);
     }
 
+    /**
+     * Constructor.
+     *
+     * @param format the format of the numbers, copied.
+     */
     public NumberConverters(NumberFormat format) {
-        this.format = format;
+        this.format = new ThreadSafeNumberFormat(format);
     }
 
     static {
@@ -70,33 +85,10 @@ public class NumberConverters implements Converter {
      */
     @Override
     public Object convert(Class<?> targetType, Object value) {
+        int target = getNumberType(targetType);
         // are we dealing with a number to number conversion?
-        if ((value instanceof Number) && Number.class.isAssignableFrom(targetType)) {
-            if (Integer.class.equals(targetType)) {
-                //intValue is the odd man out
-                return ((Number) value).intValue();
-            } else {
-                //everything else is short/long/float/byte/doubleValue().
-                try {
-                    Method m = value.getClass().getMethod(targetType.getSimpleName().toLowerCase() + "Value");
-                    return m.invoke(value);
-                } catch (NoSuchMethodException ex) {
-                    Logger.getLogger(NumberConverters.class.getName()).log(Level.SEVERE, null, ex);
-                    throw new IllegalArgumentException("this code must not be reached");
-                } catch (SecurityException ex) {
-                    Logger.getLogger(NumberConverters.class.getName()).log(Level.SEVERE, null, ex);
-                    throw new IllegalArgumentException("this code must not be reached");
-                } catch (IllegalAccessException ex) {
-                    Logger.getLogger(NumberConverters.class.getName()).log(Level.SEVERE, null, ex);
-                    throw new IllegalArgumentException("this code must not be reached");
-                } catch (IllegalArgumentException ex) {
-                    Logger.getLogger(NumberConverters.class.getName()).log(Level.SEVERE, null, ex);
-                    throw new IllegalArgumentException("this code must not be reached");
-                } catch (InvocationTargetException ex) {
-                    Logger.getLogger(NumberConverters.class.getName()).log(Level.SEVERE, null, ex);
-                    throw new IllegalArgumentException("this code must not be reached");
-                }
-            }
+        if ((value instanceof Number) && target != NOT_A_NUMBER) {
+            return toNumber((Number) value, target);
         } else if ((value instanceof Number) && String.class.equals(targetType)) {
             //widening conversions only
             if ((value instanceof Double) || (value instanceof Float)) {
@@ -104,34 +96,75 @@ public class NumberConverters implements Converter {
             } else {
                 return format.format(((Number) value).longValue());
             }
-        } else if ((value instanceof String) && Number.class.isAssignableFrom(targetType)) {
-            //convert fron string
-            if (Integer.class.equals(targetType)) {
-                //parseInt is the odd man out
-                return Integer.parseInt(value.toString());
-            } else {
-                try {
-                    //everything else is parseShort/Long/Float/etc.
-                    Method m = targetType.getMethod("parse" + targetType.getSimpleName(), String.class);
-                    return m.invoke(null, value.toString());
-                } catch (NoSuchMethodException ex) {
-                    Logger.getLogger(NumberConverters.class.getName()).log(Level.SEVERE, null, ex);
-                    throw new IllegalArgumentException("this code must not be reached");
-                } catch (SecurityException ex) {
-                    Logger.getLogger(NumberConverters.class.getName()).log(Level.SEVERE, null, ex);
-                    throw new IllegalArgumentException("this code must not be reached");
-                } catch (IllegalAccessException ex) {
-                    Logger.getLogger(NumberConverters.class.getName()).log(Level.SEVERE, null, ex);
-                    throw new IllegalArgumentException("this code must not be reached");
-                } catch (IllegalArgumentException ex) {
-                    Logger.getLogger(NumberConverters.class.getName()).log(Level.SEVERE, null, ex);
-                    throw new IllegalArgumentException("this code must not be reached");
-                } catch (InvocationTargetException ex) {
-                    Logger.getLogger(NumberConverters.class.getName()).log(Level.SEVERE, null, ex);
-                    throw new IllegalArgumentException("this code must not be reached");
-                }
-            }
+        } else if ((value instanceof String) && target != NOT_A_NUMBER && target != NUMBER) {
+            //convert from string
+            return parse(value.toString(), target);
         }
         throw new IllegalArgumentException("no conversion supported");
     }
+
+    /**
+     * Get the index of a number type in the conversion matrix. The types are
+     * compared by identity so no reflection is needed to pick the conversion.
+     *
+     * @param type the type.
+     * @return the index of the type or NOT_A_NUMBER.
+     */
+    private static int getNumberType(Class<?> type) {
+        if (type == Integer.class) {
+            return INTEGER;
+        } else if (type == Double.class) {
+            return DOUBLE;
+        } else if (type == Long.class) {
+            return LONG;
+        } else if (type == Float.class) {
+            return FLOAT;
+        } else if (type == Short.class) {
+            return SHORT;
+        } else if (type == Byte.class) {
+            return BYTE;
+        } else if (type == Number.class) {
+            return NUMBER;
+        }
+        return NOT_A_NUMBER;
+    }
+
+    private static Number toNumber(Number value, int target) {
+        switch (target) {
+            case INTEGER:
+                return value instanceof Integer ? value : Integer.valueOf(value.intValue());
+            case DOUBLE:
+                return value instanceof Double ? value : Double.valueOf(value.doubleValue());
+            case LONG:
+                return value instanceof Long ? value : Long.valueOf(value.longValue());
+            case FLOAT:
+                return value instanceof Float ? value : Float.valueOf(value.floatValue());
+            case SHORT:
+                return value instanceof Short ? value : Short.valueOf(value.shortValue());
+            case BYTE:
+                return value instanceof Byte ? value : Byte.valueOf(value.byteValue());
+            default:
+                //any number is a Number
+                return value;
+        }
+    }
+
+    private static Number parse(String value, int target) {
+        switch (target) {
+            case INTEGER:
+                return Integer.valueOf(ConverterRegistry.parseInt(value));
+            case DOUBLE:
+                return Double.valueOf(ConverterRegistry.parseDouble(value));
+            case LONG:
+                return Long.valueOf(ConverterRegistry.parseLong(value));
+            case FLOAT:
+                return Float.valueOf(ConverterRegistry.parseFloat(value));
+            case SHORT:
+                return Short.valueOf(ConverterRegistry.parseShort(value));
+            case BYTE:
+                return Byte.valueOf(ConverterRegistry.parseByte(value));
+            default:
+                throw new IllegalArgumentException("no conversion supported");
+        }
+    }
 }
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util.converter;
+
+/**
+ * Parsing of primitives from character sequences. <br>
+ *
+ * The common forms (ASCII digits, an optional sign, a decimal point and an
+ * exponent) are parsed in place. Anything else, including every invalid
+ * input, is handed over to the JDK parse methods so the results and the
+ * exceptions are the same as <code>Integer.parseInt</code>,
+ * <code>Double.parseDouble</code> and co.
+ */
+final class PrimitiveParser {
+
+    /**
+     * Digits always fitting in an int.
+     */
+    private static final int INT_DIGITS = 9;
+
+    /**
+     * Digits always fitting in a long.
+     */
+    private static final int LONG_DIGITS = 18;
+
+    /**
+     * Digits exactly represented by a double.
+     */
+    private static final int DOUBLE_DIGITS = 15;
+
+    /**
+     * Digits exactly represented by a float.
+     */
+    private static final int FLOAT_DIGITS = 7;
+
+    /**
+     * Powers of ten exactly represented by a double.
+     */
+    private static final double[] DOUBLE_POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Powers of ten exactly represented by a float.
+     */
+    private static final float[] FLOAT_POWERS = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    private PrimitiveParser() {
+    }
+
+    static int parseInt(CharSequence text) {
+        int start = getDigitsStart(text);
+        int length = text.length();
+        if (start < 0 || length - start > INT_DIGITS) {
+            return Integer.parseInt(text.toString());
+        }
+        int result = 0;
+        for (int ii = start; ii < length; ii++) {
+            int digit = text.charAt(ii) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(text.toString());
+            }
+            result = result * 10 + digit;
+        }
+        return text.charAt(0) == '-' ? -result : result;
+    }
+
+    static long parseLong(CharSequence text) {
+        int start = getDigitsStart(text);
+        int length = text.length();
+        if (start < 0 || length - start > LONG_DIGITS) {
+            return Long.parseLong(text.toString());
+        }
+        long result = 0;
+        for (int ii = start; ii < length; ii++) {
+            int digit = text.charAt(ii) - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(text.toString());
+            }
+            result = result * 10 + digit;
+        }
+        return text.charAt(0) == '-' ? -result : result;
+    }
+
+    static short parseShort(CharSequence text) {
+        int result = parseInt(text);
+        if (result < Short.MIN_VALUE || result > Short.MAX_VALUE) {
+            return Short.parseShort(text.toString());
+        }
+        return (short) result;
+    }
+
+    static byte parseByte(CharSequence text) {
+        int result = parseInt(text);
+        if (result < Byte.MIN_VALUE || result > Byte.MAX_VALUE) {
+            return Byte.parseByte(text.toString());
+        }
+        return (byte) result;
+    }
+
+    static double parseDouble(CharSequence text) {
+        return parseDecimal(text, 0, text.length(), false);
+    }
+
+    /**
+     * Parse a double from a part of a text.
+     *
+     * @param text the text.
+     * @param start the index of the first character.
+     * @param end the index after the last character.
+     * @return the value.
+     */
+    static double parseDouble(CharSequence text, int start, int end) {
+        return parseDecimal(text, start, end, false);
+    }
+
+    static float parseFloat(CharSequence text) {
+        return (float) parseDecimal(text, 0, text.length(), true);
+    }
+
+    static boolean parseBoolean(CharSequence text) {
+        if (text == null || text.length() != 4) {
+            return false;
+        }
+        return Character.toLowerCase(text.charAt(0)) == 't'
+                && Character.toLowerCase(text.charAt(1)) == 'r'
+                && Character.toLowerCase(text.charAt(2)) == 'u'
+                && Character.toLowerCase(text.charAt(3)) == 'e';
+    }
+
+    /**
+     * Parse a decimal number. The significant digits and the power of ten
+     * being exact, the result is rounded only once, as the JDK does.
+     *
+     * @param text the text to parse.
+     * @param start the index of the first character.
+     * @param length the index after the last character.
+     * @param single true to compute a float.
+     * @return the value.
+     */
+    private static double parseDecimal(CharSequence text, int start, int length, boolean single) {
+        int maxDigits = single ? FLOAT_DIGITS : DOUBLE_DIGITS;
+        int maxExponent = single ? FLOAT_POWERS.length - 1 : DOUBLE_POWERS.length - 1;
+        int ii = getDigitsStart(text, start, length);
+        if (ii < 0) {
+            return fallback(text, start, length, single);
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean point = false;
+        boolean any = false;
+        for (; ii < length; ii++) {
+            char c = text.charAt(ii);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (mantissa != 0 || c != '0') {
+                    digits++;
+                }
+                if (digits > maxDigits) {
+                    return fallback(text, start, length, single);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (point) {
+                    exponent--;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!any) {
+            return fallback(text, start, length, single);
+        }
+        if (ii < length && (text.charAt(ii) == 'e' || text.charAt(ii) == 'E')) {
+            ii++;
+            boolean negative = ii < length && text.charAt(ii) == '-';
+            if (ii < length && (text.charAt(ii) == '-' || text.charAt(ii) == '+')) {
+                ii++;
+            }
+            int first = ii;
+            int value = 0;
+            for (; ii < length && ii - first < 3; ii++) {
+                int digit = text.charAt(ii) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+            }
+            if (ii == first) {
+                return fallback(text, start, length, single);
+            }
+            exponent += negative ? -value : value;
+        }
+        if (ii != length || exponent < -maxExponent || exponent > maxExponent) {
+            // suffixes, spaces, special values and large exponents
+            return fallback(text, start, length, single);
+        }
+        double value;
+        if (single) {
+            float f = mantissa;
+            value = exponent < 0 ? f / FLOAT_POWERS[-exponent] : f * FLOAT_POWERS[exponent];
+        } else {
+            double d = mantissa;
+            value = exponent < 0 ? d / DOUBLE_POWERS[-exponent] : d * DOUBLE_POWERS[exponent];
+        }
+        return text.charAt(start) == '-' ? -value : value;
+    }
+
+    private static double fallback(CharSequence text, int start, int end, boolean single) {
+        String string = text.subSequence(start, end).toString();
+        return single ? Float.parseFloat(string) : Double.parseDouble(string);
+    }
+
+    /**
+     * Get the index of the first digit, after the sign.
+     *
+     * @return the index or -1 if there is no digit.
+     */
+    private static int getDigitsStart(CharSequence text) {
+        return getDigitsStart(text, 0, text.length());
+    }
+
+    private static int getDigitsStart(CharSequence text, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        char first = text.charAt(start);
+        int digits = first == '-' || first == '+' ? start + 1 : start;
+        return digits < end ? digits : -1;
+    }
+}
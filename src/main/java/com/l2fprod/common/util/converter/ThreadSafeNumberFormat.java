@@ -0,0 +1,205 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util.converter;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+
+/**
+ * Thread-safe number formatting. <br>
+ *
+ * The output is the one of the NumberFormat given to the constructor, with
+ * its locale. Integral values of a plain DecimalFormat are written directly,
+ * using the symbols of the format, without going through the format. Other
+ * values are formatted by a copy of the format owned by the calling thread.
+ */
+public final class ThreadSafeNumberFormat {
+
+    /**
+     * Largest integral double written directly, all its digits are exact.
+     */
+    private static final double MAX_INTEGRAL = 9007199254740992d;
+
+    private static final int MAX_LONG_DIGITS = 19;
+
+    private final NumberFormat prototype;
+    private final ThreadLocal<NumberFormat> formats;
+    private final ThreadLocal<StringBuilder> builders;
+    private final boolean direct;
+    private final char zeroDigit;
+    private final char groupingSeparator;
+    private final int groupingSize;
+    private final String positivePrefix;
+    private final String positiveSuffix;
+    private final String negativePrefix;
+    private final String negativeSuffix;
+
+    /**
+     * Constructor.
+     *
+     * @param format the format, copied so later changes to it are ignored.
+     */
+    public ThreadSafeNumberFormat(NumberFormat format) {
+        prototype = (NumberFormat) format.clone();
+        formats = new ThreadLocal<NumberFormat>() {
+            @Override
+            protected NumberFormat initialValue() {
+                return (NumberFormat) prototype.clone();
+            }
+        };
+        builders = new ThreadLocal<StringBuilder>() {
+            @Override
+            protected StringBuilder initialValue() {
+                return new StringBuilder();
+            }
+        };
+        if (prototype instanceof DecimalFormat && isPlain((DecimalFormat) prototype)) {
+            DecimalFormat decimal = (DecimalFormat) prototype;
+            DecimalFormatSymbols symbols = decimal.getDecimalFormatSymbols();
+            direct = true;
+            zeroDigit = symbols.getZeroDigit();
+            groupingSeparator = symbols.getGroupingSeparator();
+            groupingSize = decimal.isGroupingUsed() ? decimal.getGroupingSize() : 0;
+            positivePrefix = decimal.getPositivePrefix();
+            positiveSuffix = decimal.getPositiveSuffix();
+            negativePrefix = decimal.getNegativePrefix();
+            negativeSuffix = decimal.getNegativeSuffix();
+        } else {
+            direct = false;
+            zeroDigit = '0';
+            groupingSeparator = ',';
+            groupingSize = 0;
+            positivePrefix = "";
+            positiveSuffix = "";
+            negativePrefix = "-";
+            negativeSuffix = "";
+        }
+    }
+
+    /**
+     * Format a long.
+     *
+     * @param value the value.
+     * @return the formatted value.
+     */
+    public String format(long value) {
+        if (!direct || value == Long.MIN_VALUE) {
+            return formats.get().format(value);
+        }
+        StringBuilder builder = builders.get();
+        builder.setLength(0);
+        return appendDirect(builder, value).toString();
+    }
+
+    /**
+     * Format a double.
+     *
+     * @param value the value.
+     * @return the formatted value.
+     */
+    public String format(double value) {
+        if (!isDirect(value)) {
+            return formats.get().format(value);
+        }
+        StringBuilder builder = builders.get();
+        builder.setLength(0);
+        return appendDirect(builder, (long) value).toString();
+    }
+
+    /**
+     * Append a formatted long.
+     *
+     * @param builder the builder to append to.
+     * @param value the value.
+     * @return the builder.
+     */
+    public StringBuilder appendTo(StringBuilder builder, long value) {
+        if (!direct || value == Long.MIN_VALUE) {
+            return builder.append(formats.get().format(value));
+        }
+        return appendDirect(builder, value);
+    }
+
+    /**
+     * Append a formatted double.
+     *
+     * @param builder the builder to append to.
+     * @param value the value.
+     * @return the builder.
+     */
+    public StringBuilder appendTo(StringBuilder builder, double value) {
+        if (!isDirect(value)) {
+            return builder.append(formats.get().format(value));
+        }
+        return appendDirect(builder, (long) value);
+    }
+
+    /**
+     * Get a copy of the format, for the caller's exclusive use.
+     *
+     * @return the format.
+     */
+    public NumberFormat getFormat() {
+        return (NumberFormat) prototype.clone();
+    }
+
+    /**
+     * Does the format write integers as the direct path does.
+     */
+    private static boolean isPlain(DecimalFormat format) {
+        return format.getMultiplier() == 1
+                && format.getMinimumIntegerDigits() <= 1
+                && format.getMaximumIntegerDigits() >= MAX_LONG_DIGITS
+                && format.getMinimumFractionDigits() == 0
+                && !format.isDecimalSeparatorAlwaysShown()
+                && (!format.isGroupingUsed() || format.getGroupingSize() > 0)
+                && format.toPattern().indexOf('E') == -1;
+    }
+
+    /**
+     * Is the double integral and exactly written with its long value.
+     */
+    private boolean isDirect(double value) {
+        return direct
+                && value == Math.rint(value)
+                && Math.abs(value) < MAX_INTEGRAL
+                && (value != 0 || 1 / value > 0);
+    }
+
+    private StringBuilder appendDirect(StringBuilder builder, long value) {
+        long remaining = value < 0 ? -value : value;
+        builder.append(value < 0 ? negativePrefix : positivePrefix);
+        int digits = 1;
+        for (long limit = 10; digits < MAX_LONG_DIGITS && remaining >= limit; limit *= 10) {
+            digits++;
+        }
+        long power = 1;
+        for (int ii = 1; ii < digits; ii++) {
+            power *= 10;
+        }
+        for (int ii = digits - 1; ii >= 0; ii--) {
+            int digit = (int) (remaining / power);
+            remaining -= digit * power;
+            power /= 10;
+            builder.append((char) (zeroDigit + digit));
+            if (groupingSize > 0 && ii > 0 && ii % groupingSize == 0) {
+                builder.append(groupingSeparator);
+            }
+        }
+        return builder.append(value < 0 ? negativeSuffix : positiveSuffix);
+    }
+}
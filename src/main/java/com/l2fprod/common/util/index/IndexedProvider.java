@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util.index;
+
+/**
+ * A provider known by its class name only. <br>
+ *
+ * The provider class is loaded, and instantiated, the first time it is
+ * requested.
+ */
+public final class IndexedProvider {
+
+    private final String className;
+    private final ClassLoader loader;
+    private Class<?> providerClass;
+    private Object instance;
+
+    /**
+     * Constructor.
+     *
+     * @param className the provider class name.
+     * @param loader the class loader to load the provider from.
+     */
+    public IndexedProvider(String className, ClassLoader loader) {
+        this.className = className;
+        this.loader = loader;
+    }
+
+    /**
+     * @return the provider class name.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Get the provider class, loading it on first call.
+     *
+     * @return the provider class.
+     * @throws ClassNotFoundException if the provider can not be loaded.
+     */
+    public synchronized Class<?> getProviderClass() throws ClassNotFoundException {
+        if (providerClass == null) {
+            providerClass = Class.forName(className, true, loader);
+        }
+        return providerClass;
+    }
+
+    /**
+     * Get the shared instance of the provider, creating it on first call.
+     *
+     * @return the provider instance.
+     * @throws ClassNotFoundException if the provider can not be loaded.
+     * @throws InstantiationException if the provider can not be created.
+     * @throws IllegalAccessException if the provider can not be created.
+     */
+    public synchronized Object getInstance() throws ClassNotFoundException, InstantiationException, IllegalAccessException {
+        if (instance == null) {
+            instance = getProviderClass().newInstance();
+        }
+        return instance;
+    }
+
+    /**
+     * @return true if the shared instance of the provider was created.
+     */
+    public synchronized boolean hasInstance() {
+        return instance != null;
+    }
+
+    @Override
+    public String toString() {
+        return className;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Build-time index of service providers. <br>
+ *
+ * The {@link RegistryIndexProcessor} writes, for each provider of an indexed
+ * service, the types it registers for (read from the
+ * <code>EditorRegistry</code> or <code>RendererRegistry</code> annotation).
+ * Registries use it to map types to provider class names without
+ * instantiating every provider found by the {@link java.util.ServiceLoader}.
+ *
+ * The index of a service is stored in
+ * <code>META-INF/l2fprod/&lt;service&gt;.index</code>, one provider per line:
+ * <code>provider=type1,type2</code>.
+ */
+public final class RegistryIndex {
+
+    /**
+     * Folder of the index files.
+     */
+    public static final String LOCATION = "META-INF/l2fprod/";
+
+    private static final String SERVICES = "META-INF/services/";
+    private static final String ENCODING = "UTF-8";
+    private static final String[] NO_TYPES = new String[0];
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<String, Class<?>>();
+
+    static {
+        for (Class<?> primitive : new Class<?>[]{boolean.class, byte.class, char.class, short.class,
+            int.class, long.class, float.class, double.class, void.class}) {
+            PRIMITIVES.put(primitive.getName(), primitive);
+        }
+    }
+
+    private final Map<String, String[]> providerToTypes;
+
+    /**
+     * Constructor.
+     *
+     * @param providerToTypes the indexed providers.
+     */
+    private RegistryIndex(Map<String, String[]> providerToTypes) {
+        this.providerToTypes = providerToTypes;
+    }
+
+    /**
+     * Load all the index files of a service visible from a class loader.
+     *
+     * @param service the service type.
+     * @param loader the class loader used to look for the index files.
+     * @return the merged index, empty if no index file exists.
+     */
+    public static RegistryIndex load(Class<?> service, ClassLoader loader) {
+        Map<String, String[]> providers = new LinkedHashMap<String, String[]>();
+        for (String line : readLines(getResourceName(service.getName()), loader)) {
+            int index = line.indexOf('=');
+            if (index == -1) {
+                providers.put(line, NO_TYPES);
+            } else {
+                String types = line.substring(index + 1).trim();
+                providers.put(line.substring(0, index).trim(),
+                        types.length() == 0 ? NO_TYPES : types.split("\\s*,\\s*"));
+            }
+        }
+        return new RegistryIndex(providers);
+    }
+
+    /**
+     * Get the provider class names of a service as the
+     * {@link java.util.ServiceLoader} would find them, without loading them.
+     *
+     * @param service the service type.
+     * @param loader the class loader used to look for the configuration files.
+     * @return the provider class names, in configuration order.
+     */
+    public static List<String> getServiceProviders(Class<?> service, ClassLoader loader) {
+        return new ArrayList<String>(new LinkedHashSet<String>(
+                readLines(SERVICES + service.getName(), loader)));
+    }
+
+    /**
+     * Get the class loader used by the {@link java.util.ServiceLoader} when
+     * none is specified.
+     *
+     * @return the context class loader or the system class loader.
+     */
+    public static ClassLoader getDefaultClassLoader() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loader == null ? ClassLoader.getSystemClassLoader() : loader;
+    }
+
+    /**
+     * Load an indexed type, primitive types included.
+     *
+     * @param name the binary name of the type.
+     * @param loader the class loader to load the type from.
+     * @return the type.
+     * @throws ClassNotFoundException if the type does not exist.
+     */
+    public static Class<?> loadType(String name, ClassLoader loader) throws ClassNotFoundException {
+        Class<?> primitive = PRIMITIVES.get(name);
+        if (primitive != null) {
+            return primitive;
+        }
+        return Class.forName(name, false, loader);
+    }
+
+    /**
+     * Is the provider in this index.
+     *
+     * @param provider the provider class name.
+     * @return true if the types of the provider are known.
+     */
+    public boolean contains(String provider) {
+        return providerToTypes.containsKey(provider);
+    }
+
+    /**
+     * Get the types a provider registers for.
+     *
+     * @param provider the provider class name.
+     * @return the binary names of the types, empty if the provider is not
+     * indexed or registers for no type.
+     */
+    public String[] getTypes(String provider) {
+        String[] types = providerToTypes.get(provider);
+        return types == null ? NO_TYPES : types.clone();
+    }
+
+    /**
+     * @return the indexed provider class names, in index order.
+     */
+    public List<String> getProviders() {
+        return Collections.unmodifiableList(new ArrayList<String>(providerToTypes.keySet()));
+    }
+
+    /**
+     * @return true if no provider is indexed.
+     */
+    public boolean isEmpty() {
+        return providerToTypes.isEmpty();
+    }
+
+    /**
+     * Get the resource name of the index of a service.
+     *
+     * @param service the service class name.
+     * @return the resource name.
+     */
+    static String getResourceName(String service) {
+        return LOCATION + service + ".index";
+    }
+
+    /**
+     * Format an index entry.
+     *
+     * @param provider the provider class name.
+     * @param types the binary names of the registered types.
+     * @return the index line.
+     */
+    static String format(String provider, List<String> types) {
+        StringBuilder line = new StringBuilder(provider).append('=');
+        for (int ii = 0; ii < types.size(); ii++) {
+            if (ii > 0) {
+                line.append(',');
+            }
+            line.append(types.get(ii));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Read the non-comment lines of all the resources with the given name.
+     */
+    private static List<String> readLines(String resource, ClassLoader loader) {
+        List<String> lines = new ArrayList<String>();
+        Enumeration<URL> urls;
+        try {
+            urls = loader.getResources(resource);
+        } catch (IOException ex) {
+            Logger.getLogger(RegistryIndex.class.getName()).log(Level.WARNING, resource, ex);
+            return Collections.emptyList();
+        }
+        while (urls.hasMoreElements()) {
+            URL url = urls.nextElement();
+            try {
+                InputStream in = url.openStream();
+                try {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(in, ENCODING));
+                    String line = reader.readLine();
+                    while (line != null) {
+                        int comment = line.indexOf('#');
+                        if (comment != -1) {
+                            line = line.substring(0, comment);
+                        }
+                        line = line.trim();
+                        if (line.length() > 0) {
+                            lines.add(line);
+                        }
+                        line = reader.readLine();
+                    }
+                } finally {
+                    in.close();
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(RegistryIndex.class.getName()).log(Level.WARNING, url.toString(), ex);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2015 Matthew Aguirre
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor writing the {@link RegistryIndex} of the editors and
+ * renderers being compiled. <br>
+ *
+ * Every concrete public implementation of an indexed service is written with
+ * the types of its registry annotation, so the registries know all the
+ * providers of a jar without instantiating them. The processor never claims
+ * any annotation.
+ */
+@SupportedAnnotationTypes("*")
+public class RegistryIndexProcessor extends AbstractProcessor {
+
+    /**
+     * Indexed services and the annotation listing their types.
+     */
+    private static final String[][] SERVICES = {
+        {"java.beans.PropertyEditor", "com.l2fprod.common.annotations.EditorRegistry"},
+        {"javax.swing.table.TableCellRenderer", "com.l2fprod.common.annotations.RendererRegistry"}
+    };
+
+    private final List<Map<String, List<String>>> providers = new ArrayList<Map<String, List<String>>>();
+    private final Set<String> compiled = new HashSet<String>();
+
+    public RegistryIndexProcessor() {
+        for (int ii = 0; ii < SERVICES.length; ii++) {
+            providers.add(new TreeMap<String, List<String>>());
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            for (int ii = 0; ii < SERVICES.length; ii++) {
+                write(SERVICES[ii][0], providers.get(ii));
+            }
+        } else {
+            for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+                inspect(type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Record the type if it provides an indexed service, then its nested types.
+     */
+    private void inspect(TypeElement type) {
+        String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+        compiled.add(name);
+        Set<Modifier> modifiers = type.getModifiers();
+        if (type.getKind() == ElementKind.CLASS
+                && modifiers.contains(Modifier.PUBLIC)
+                && !modifiers.contains(Modifier.ABSTRACT)
+                && (type.getNestingKind() == NestingKind.TOP_LEVEL || modifiers.contains(Modifier.STATIC))) {
+            for (int ii = 0; ii < SERVICES.length; ii++) {
+                TypeElement service = processingEnv.getElementUtils().getTypeElement(SERVICES[ii][0]);
+                if (service != null && processingEnv.getTypeUtils().isAssignable(type.asType(),
+                        processingEnv.getTypeUtils().erasure(service.asType()))) {
+                    providers.get(ii).put(name, getRegisteredTypes(type, SERVICES[ii][1]));
+                }
+            }
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            inspect(nested);
+        }
+    }
+
+    /**
+     * Read the <code>type</code> member of the registry annotation.
+     */
+    private List<String> getRegisteredTypes(TypeElement type, String annotation) {
+        List<String> types = new ArrayList<String>();
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            Element element = mirror.getAnnotationType().asElement();
+            if (!((TypeElement) element).getQualifiedName().contentEquals(annotation)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : mirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("type")) {
+                    Object value = entry.getValue().getValue();
+                    if (value instanceof List<?>) {
+                        for (Object item : (List<?>) value) {
+                            types.add(getBinaryName((TypeMirror) ((AnnotationValue) item).getValue()));
+                        }
+                    } else {
+                        types.add(getBinaryName((TypeMirror) value));
+                    }
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Get the name of a type as returned by {@link Class#getName()}.
+     */
+    private String getBinaryName(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            return processingEnv.getElementUtils().getBinaryName(
+                    (TypeElement) ((DeclaredType) type).asElement()).toString();
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            return "[" + getDescriptor(((ArrayType) type).getComponentType());
+        } else {
+            return type.toString();
+        }
+    }
+
+    private String getDescriptor(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "Z";
+            case BYTE:
+                return "B";
+            case CHAR:
+                return "C";
+            case SHORT:
+                return "S";
+            case INT:
+                return "I";
+            case LONG:
+                return "J";
+            case FLOAT:
+                return "F";
+            case DOUBLE:
+                return "D";
+            case ARRAY:
+                return getBinaryName(type);
+            default:
+                return "L" + getBinaryName(type) + ";";
+        }
+    }
+
+    /**
+     * Write the index of a service, keeping the entries of a previous
+     * (incremental) compilation for the classes which were not recompiled.
+     */
+    private void write(String service, Map<String, List<String>> found) {
+        String resource = RegistryIndex.getResourceName(service);
+        Map<String, List<String>> index = new TreeMap<String, List<String>>(found);
+        for (Map.Entry<String, List<String>> entry : readPrevious(resource).entrySet()) {
+            String provider = entry.getKey();
+            if (!compiled.contains(provider)
+                    && processingEnv.getElementUtils().getTypeElement(provider.replace('$', '.')) != null) {
+                index.put(provider, entry.getValue());
+            }
+        }
+        if (index.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resource);
+            Writer writer = new OutputStreamWriter(file.openOutputStream(), "UTF-8");
+            try {
+                writer.write("# Generated by " + RegistryIndexProcessor.class.getName() + "\n");
+                for (Map.Entry<String, List<String>> entry : index.entrySet()) {
+                    writer.write(RegistryIndex.format(entry.getKey(), entry.getValue()));
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write " + resource + ": " + ex.getMessage());
+        }
+    }
+
+    private Map<String, List<String>> readPrevious(String resource) {
+        Map<String, List<String>> previous = new TreeMap<String, List<String>>();
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", resource);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(file.openInputStream(), "UTF-8"));
+            try {
+                String line = reader.readLine();
+                while (line != null) {
+                    int index = line.indexOf('=');
+                    if (!line.startsWith("#") && index != -1) {
+                        String types = line.substring(index + 1).trim();
+                        List<String> list = new ArrayList<String>();
+                        if (types.length() > 0) {
+                            Collections.addAll(list, types.split(","));
+                        }
+                        previous.put(line.substring(0, index), list);
+                    }
+                    line = reader.readLine();
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException ex) {
+            // no previous index, this is a full compilation
+        } catch (IllegalArgumentException ex) {
+            // some compilers do not support reading from the class output
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import com.l2fprod.common.propertysheet.DefaultProperty;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class BeanAccessorsTest {
+
+    public static class TestBean {
+
+        int intValue;
+        String stringValue;
+
+        public String getString() {
+            return stringValue;
+        }
+
+        public void setString(String value) {
+            stringValue = value;
+        }
+
+        public int getInt() {
+            return intValue;
+        }
+
+        public boolean isReadOnly() {
+            return true;
+        }
+    }
+
+    public static class NumberBean {
+
+        long value;
+
+        public long getValue() {
+            return value;
+        }
+
+        public void setValue(long value) {
+            this.value = value;
+        }
+
+        public String getFailure() {
+            throw new IllegalStateException("failure");
+        }
+    }
+
+    public BeanAccessorsTest() {
+    }
+
+    /**
+     * Test of forClass method, of class BeanAccessors.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testForClass() throws Exception {
+        System.out.println("forClass");
+        BeanAccessors accessors = BeanAccessors.forClass(TestBean.class);
+        assertSame(accessors, BeanAccessors.forClass(TestBean.class));
+        assertSame(TestBean.class, accessors.getBeanClass());
+
+        assertEquals(TestBean.class.getMethod("getString"), accessors.getReadMethod("string"));
+        assertEquals(TestBean.class.getMethod("setString", String.class), accessors.getWriteMethod("string"));
+        assertEquals(TestBean.class.getMethod("getInt"), accessors.getReadMethod("int"));
+        assertNull(accessors.getWriteMethod("int"));
+        assertEquals(TestBean.class.getMethod("isReadOnly"), accessors.getReadMethod("readOnly"));
+        assertNull(accessors.getReadMethod("missing"));
+
+        assertEquals(accessors.getReadMethod("string"), BeanUtils.getReadMethod(TestBean.class, "string"));
+        assertNull(BeanUtils.getWriteMethod(TestBean.class, "readOnly"));
+    }
+
+    /**
+     * Test of the reads and writes of DefaultProperty through the accessors.
+     */
+    @Test
+    public void testDefaultProperty() {
+        System.out.println("defaultProperty");
+        TestBean bean = new TestBean();
+        bean.intValue = 3;
+        DefaultProperty property = new DefaultProperty();
+        property.setName("string");
+        property.setValue("value");
+        property.writeToObject(bean);
+        assertEquals("value", bean.getString());
+
+        property.setName("int");
+        property.readFromObject(bean);
+        assertEquals(3, property.getValue());
+    }
+
+    /**
+     * Test of setStrategy method, of class BeanAccessors.
+     */
+    @Test
+    public void testStrategy() {
+        System.out.println("strategy");
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger reads = new AtomicInteger();
+        final AccessorStrategy reflection = BeanAccessors.getStrategy();
+        BeanAccessors before = BeanAccessors.forClass(TestBean.class);
+        BeanAccessors.setStrategy(new AccessorStrategy() {
+            @Override
+            public PropertyAccessor createAccessor(Method readMethod, Method writeMethod) {
+                created.incrementAndGet();
+                final PropertyAccessor delegate = reflection.createAccessor(readMethod, writeMethod);
+                return new PropertyAccessor() {
+                    @Override
+                    public boolean isReadable() {
+                        return delegate.isReadable();
+                    }
+
+                    @Override
+                    public boolean isWritable() {
+                        return delegate.isWritable();
+                    }
+
+                    @Override
+                    public Object read(Object bean) throws IllegalAccessException, InvocationTargetException {
+                        reads.incrementAndGet();
+                        return delegate.read(bean);
+                    }
+
+                    @Override
+                    public void write(Object bean, Object value)
+                            throws IllegalAccessException, InvocationTargetException {
+                        delegate.write(bean, value);
+                    }
+                };
+            }
+        });
+        try {
+            assertFalse(before.isCurrent());
+            TestBean bean = new TestBean();
+            bean.intValue = 7;
+            DefaultProperty property = new DefaultProperty();
+            property.setName("int");
+            for (int ii = 0; ii < 3; ii++) {
+                property.readFromObject(bean);
+            }
+            assertEquals(7, property.getValue());
+            assertEquals(1, created.get());
+            assertEquals(3, reads.get());
+            assertNull(BeanAccessors.forClass(TestBean.class).getAccessor("missing"));
+        } finally {
+            BeanAccessors.setStrategy(reflection);
+        }
+    }
+
+    /**
+     * Test of createAccessor method, of class MethodHandleAccessorStrategy.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMethodHandleStrategy() throws Exception {
+        System.out.println("methodHandleStrategy");
+        assertTrue(BeanAccessors.getStrategy() instanceof MethodHandleAccessorStrategy);
+        AccessorStrategy strategy = new MethodHandleAccessorStrategy();
+        PropertyAccessor value = strategy.createAccessor(NumberBean.class.getMethod("getValue"),
+                NumberBean.class.getMethod("setValue", long.class));
+        NumberBean bean = new NumberBean();
+        value.write(bean, 5L);
+        assertEquals(5L, value.read(bean));
+        // widened as by reflection
+        value.write(bean, 6);
+        assertEquals(6L, bean.value);
+        try {
+            value.write(bean, null);
+            fail("null long");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            value.write(bean, "7");
+            fail("String long");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            value.read(new TestBean());
+            fail("other bean");
+        } catch (IllegalArgumentException ex) {
+        }
+
+        PropertyAccessor failure = strategy.createAccessor(NumberBean.class.getMethod("getFailure"), null);
+        assertTrue(failure.isReadable());
+        assertFalse(failure.isWritable());
+        try {
+            failure.read(bean);
+            fail("no failure");
+        } catch (InvocationTargetException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+    }
+}
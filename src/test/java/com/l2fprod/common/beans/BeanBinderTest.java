@@ -0,0 +1,300 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import com.l2fprod.common.propertysheet.MixedValue;
+import com.l2fprod.common.propertysheet.Property;
+import com.l2fprod.common.propertysheet.PropertySheetPanel;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import javax.swing.SwingUtilities;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class BeanBinderTest {
+
+    public static class TestBean {
+
+        int price = 2;
+        int quantity = 3;
+        int unrelated;
+        int reads;
+
+        public int getPrice() {
+            return price;
+        }
+
+        public void setPrice(int price) {
+            this.price = price;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        @DependsOn({"price", "quantity"})
+        public int getTotal() {
+            return price * quantity;
+        }
+
+        @DependsOn("total")
+        public String getSummary() {
+            return "total: " + getTotal();
+        }
+
+        public int getUnrelated() {
+            reads++;
+            return unrelated;
+        }
+
+        public void setUnrelated(int unrelated) {
+            this.unrelated = unrelated;
+        }
+    }
+
+    public static class OtherBean {
+
+        int price = 2;
+        String color;
+
+        public int getPrice() {
+            return price;
+        }
+
+        public void setPrice(int price) {
+            this.price = price;
+        }
+
+        public String getColor() {
+            return color;
+        }
+
+        public void setColor(String color) {
+            this.color = color;
+        }
+    }
+
+    public static class BoundBean {
+
+        final PropertyChangeSupport listeners = new PropertyChangeSupport(this);
+        int level;
+        int reads;
+
+        public int getLevel() {
+            reads++;
+            return level;
+        }
+
+        public void setLevel(int level) {
+            int old = this.level;
+            this.level = level;
+            listeners.firePropertyChange("level", old, level);
+        }
+
+        public String getName() {
+            return "bound";
+        }
+
+        public void addPropertyChangeListener(PropertyChangeListener listener) {
+            listeners.addPropertyChangeListener(listener);
+        }
+
+        public void removePropertyChangeListener(PropertyChangeListener listener) {
+            listeners.removePropertyChangeListener(listener);
+        }
+    }
+
+    public BeanBinderTest() {
+    }
+
+    /**
+     * Test of getDependents method, of class PropertyDependencies.
+     */
+    @Test
+    public void testDependencies() {
+        System.out.println("getDependents");
+        PropertyDependencies dependencies = PropertyDependencies.forClass(TestBean.class);
+        assertSame(dependencies, PropertyDependencies.forClass(TestBean.class));
+        assertArrayEquals(new String[]{"total", "summary"}, dependencies.getDependents("price"));
+        assertArrayEquals(new String[]{"summary"}, dependencies.getDependents("total"));
+        assertEquals(0, dependencies.getDependents("unrelated").length);
+
+        PropertyDependencies more = dependencies.withDependency("unrelated", "price");
+        assertArrayEquals(new String[]{"price", "total", "summary"}, more.getDependents("unrelated"));
+        assertEquals(0, dependencies.getDependents("unrelated").length);
+
+        // cycles end at the property itself
+        PropertyDependencies cycle = dependencies.withDependency("summary", "price");
+        assertArrayEquals(new String[]{"total", "summary"}, cycle.getDependents("price"));
+    }
+
+    /**
+     * Test of the property change listener, of class BeanBinder.
+     */
+    @Test
+    public void testTargetedRead() {
+        System.out.println("BeanBinder: targeted read");
+        TestBean bean = new TestBean();
+        PropertySheetPanel sheet = new PropertySheetPanel();
+        BeanBinder binder = new BeanBinder(bean, sheet);
+        assertEquals("total: 6", getProperty(sheet, "summary").getValue());
+
+        bean.reads = 0;
+        getProperty(sheet, "price").setValue(5);
+        assertEquals(5, bean.price);
+        assertEquals(15, getProperty(sheet, "total").getValue());
+        assertEquals("total: 15", getProperty(sheet, "summary").getValue());
+        assertEquals(0, bean.reads);
+
+        binder.addDependency("quantity", "unrelated");
+        bean.unrelated = 7;
+        getProperty(sheet, "quantity").setValue(4);
+        assertEquals(1, bean.reads);
+        assertEquals(7, getProperty(sheet, "unrelated").getValue());
+        assertEquals(7, bean.unrelated);
+        assertEquals("total: 20", getProperty(sheet, "summary").getValue());
+
+        // reading all the properties does not write them back
+        bean.price = 1;
+        binder.update();
+        assertEquals(1, bean.price);
+        assertEquals(4, getProperty(sheet, "total").getValue());
+    }
+
+    /**
+     * Test of BeanBinder with several beans.
+     */
+    @Test
+    public void testMultipleBeans() {
+        System.out.println("BeanBinder: multiple beans");
+        TestBean[] beans = new TestBean[MergedValues.CHUNK_SIZE * 3 + 1];
+        for (int ii = 0; ii < beans.length; ii++) {
+            beans[ii] = new TestBean();
+        }
+        OtherBean other = new OtherBean();
+        Object[] all = new Object[beans.length + 1];
+        System.arraycopy(beans, 0, all, 0, beans.length);
+        all[beans.length] = other;
+
+        PropertySheetPanel sheet = new PropertySheetPanel();
+        BeanBinder binder = new BeanBinder(all, sheet);
+        for (Property property : sheet.getProperties()) {
+            assertFalse(property.getName(), "total".equals(property.getName()));
+            assertFalse(property.getName(), "color".equals(property.getName()));
+        }
+        assertEquals(2, getProperty(sheet, "price").getValue());
+
+        beans[MergedValues.CHUNK_SIZE + 1].price = 3;
+        binder.update();
+        assertTrue(MixedValue.isMixed(getProperty(sheet, "price").getValue()));
+        assertEquals(2, beans[0].price);
+
+        getProperty(sheet, "price").setValue(7);
+        for (TestBean bean : beans) {
+            assertEquals(7, bean.price);
+        }
+        assertEquals(7, other.price);
+        assertEquals(7, getProperty(sheet, "price").getValue());
+    }
+
+    /**
+     * Test of the bound beans listener, of class BeanBinder.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBoundBean() throws Exception {
+        System.out.println("BeanBinder: bound bean");
+        BoundBean bean = new BoundBean();
+        PropertySheetPanel sheet = new PropertySheetPanel();
+        BeanBinder binder = new BeanBinder(bean, sheet);
+        assertEquals(BeanBinder.DEFAULT_REFRESH_INTERVAL, binder.getRefreshInterval());
+        binder.setRefreshInterval(200);
+        assertEquals(200, binder.getRefreshInterval());
+        assertEquals(1, bean.listeners.getPropertyChangeListeners().length);
+
+        bean.reads = 0;
+        bean.setLevel(1);
+        bean.setLevel(2);
+        bean.setLevel(3);
+        final Property level = getProperty(sheet, "level");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Integer.valueOf(3).equals(level.getValue()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(3, level.getValue());
+            }
+        });
+        assertEquals(1, bean.reads);
+
+        binder.unbind();
+        assertEquals(0, bean.listeners.getPropertyChangeListeners().length);
+    }
+
+    /**
+     * Test of an edit of a bound bean, read once, of class BeanBinder.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBoundBeanEdit() throws Exception {
+        System.out.println("BeanBinder: bound bean edit");
+        final BoundBean bean = new BoundBean();
+        PropertySheetPanel sheet = new PropertySheetPanel();
+        BeanBinder binder = new BeanBinder(bean, sheet);
+        binder.setRefreshInterval(50);
+        final Property level = getProperty(sheet, "level");
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                bean.reads = 0;
+                level.setValue(4);
+            }
+        });
+        assertEquals(4, bean.level);
+        assertEquals(1, bean.reads);
+
+        // no refresh of the written property
+        Thread.sleep(200);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(1, bean.reads);
+            }
+        });
+        binder.unbind();
+    }
+
+    private static Property getProperty(PropertySheetPanel sheet, String name) {
+        for (Property property : sheet.getProperties()) {
+            if (name.equals(property.getName())) {
+                return property;
+            }
+        }
+        throw new AssertionError(name);
+    }
+}
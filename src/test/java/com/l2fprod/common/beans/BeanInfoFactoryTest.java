@@ -18,6 +18,8 @@ package com.l2fprod.common.beans;
 import com.l2fprod.common.annotations.DirectoryProperty;
 import com.l2fprod.common.annotations.FileProperty;
 import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
 import java.io.File;
 import java.io.IOException;
 import java.util.logging.Level;
@@ -145,4 +147,32 @@ public class BeanInfoFactoryTest {
         assertNotNull(result);
     }
 
+    /**
+     * Test of addIntrospectedProperty method, of class BaseBeanInfo.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAddIntrospectedProperty() throws Exception {
+        System.out.println("addIntrospectedProperty");
+        BaseBeanInfo byName = new BaseBeanInfo(TestBean.class);
+        BaseBeanInfo introspected = new BaseBeanInfo(TestBean.class);
+        for (PropertyDescriptor prop : Introspector.getBeanInfo(TestBean.class).getPropertyDescriptors()) {
+            if (prop.getReadMethod() != null) {
+                byName.addProperty(prop.getName());
+                introspected.addIntrospectedProperty(prop);
+            }
+        }
+        assertEquals(byName.getPropertyDescriptorCount(), introspected.getPropertyDescriptorCount());
+        for (int ii = 0; ii < byName.getPropertyDescriptorCount(); ii++) {
+            PropertyDescriptor expected = byName.getPropertyDescriptor(ii);
+            PropertyDescriptor actual = introspected.getPropertyDescriptor(ii);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getDisplayName(), actual.getDisplayName());
+            assertEquals(expected.getReadMethod(), actual.getReadMethod());
+            assertEquals(expected.getWriteMethod(), actual.getWriteMethod());
+            assertEquals(expected.getPropertyType(), actual.getPropertyType());
+        }
+    }
+
 }
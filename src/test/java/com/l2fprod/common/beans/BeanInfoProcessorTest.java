@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import com.l2fprod.common.annotations.Browsable;
+import com.l2fprod.common.annotations.Categorization;
+import com.l2fprod.common.annotations.Description;
+import com.l2fprod.common.annotations.DisplayName;
+import com.l2fprod.common.annotations.FileProperty;
+import com.l2fprod.common.beans.editor.FilePropertyEditor;
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.File;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class BeanInfoProcessorTest {
+
+    public static class AnnotatedBean {
+
+        String name;
+        File file;
+        boolean enabled;
+        int secret;
+
+        @Categorization(category = "Identity")
+        @DisplayName("Name \"quoted\"")
+        public String getName() {
+            return name;
+        }
+
+        @Description("The name")
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @FileProperty
+        public File getFile() {
+            return file;
+        }
+
+        public void setFile(File file) {
+            this.file = file;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public int getVersion() {
+            return 1;
+        }
+
+        @Browsable(enabled = false)
+        public int getSecret() {
+            return secret;
+        }
+
+        public void setSecret(int secret) {
+            this.secret = secret;
+        }
+    }
+
+    public BeanInfoProcessorTest() {
+    }
+
+    /**
+     * Test of the BeanInfo written by BeanInfoProcessor.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGeneratedBeanInfo() throws Exception {
+        System.out.println("BeanInfoProcessor");
+        BeanInfo info = BeanInfoFactory.createBeanInfo(AnnotatedBean.class);
+        assertEquals(AnnotatedBean.class.getName() + "$$L2fprodBeanInfo", info.getClass().getName());
+        assertSame(info, new DefaultBeanInfoResolver().getBeanInfo(AnnotatedBean.class));
+
+        PropertyDescriptor[] properties = info.getPropertyDescriptors();
+        assertEquals(4, properties.length);
+        assertEquals("enabled", properties[0].getName());
+        assertEquals(AnnotatedBean.class.getMethod("isEnabled"), properties[0].getReadMethod());
+        assertNull(properties[0].getWriteMethod());
+
+        assertEquals("file", properties[1].getName());
+        assertEquals(FilePropertyEditor.class, properties[1].getPropertyEditorClass());
+        assertEquals("General", ((ExtendedPropertyDescriptor) properties[1]).getCategory());
+
+        assertEquals("name", properties[2].getName());
+        assertEquals("Identity", ((ExtendedPropertyDescriptor) properties[2]).getCategory());
+        assertEquals("Name \"quoted\"", properties[2].getDisplayName());
+        assertEquals("The name", properties[2].getShortDescription());
+        assertEquals(AnnotatedBean.class.getMethod("setName", String.class), properties[2].getWriteMethod());
+
+        assertEquals("version", properties[3].getName());
+        assertNull(properties[3].getWriteMethod());
+    }
+
+    /**
+     * Test the JDK still sees the properties hidden by the generated
+     * BeanInfo.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testHiddenForJdk() throws Exception {
+        System.out.println("BeanInfoProcessor: Introspector");
+        boolean found = false;
+        for (PropertyDescriptor property : Introspector.getBeanInfo(AnnotatedBean.class).getPropertyDescriptors()) {
+            found |= "secret".equals(property.getName());
+        }
+        assertTrue(found);
+        assertEquals(AnnotatedBean.class.getMethod("getSecret"), BeanUtils.getReadMethod(AnnotatedBean.class, "secret"));
+        assertEquals(AnnotatedBean.class.getMethod("setSecret", int.class),
+                BeanUtils.getWriteMethod(AnnotatedBean.class, "secret"));
+    }
+}
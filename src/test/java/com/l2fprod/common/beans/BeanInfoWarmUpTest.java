@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import java.beans.BeanInfo;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class BeanInfoWarmUpTest {
+
+    public static class WarmBean {
+
+        public String getName() {
+            return null;
+        }
+    }
+
+    public static class PackageBean {
+
+        public String getName() {
+            return null;
+        }
+    }
+
+    public BeanInfoWarmUpTest() {
+    }
+
+    /**
+     * Test of warmUp method with classes, of class DefaultBeanInfoResolver.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWarmUpClasses() throws Exception {
+        System.out.println("warmUpClasses");
+        assertNull(DefaultBeanInfoResolver.getBeanInfoHelper(WarmBean.class));
+        Collection<Class<?>> classes = Arrays.<Class<?>>asList(WarmBean.class, String.class);
+        Future<Integer> future = DefaultBeanInfoResolver.warmUp(classes);
+        assertEquals(2, future.get(10, TimeUnit.SECONDS).intValue());
+        assertTrue(future.isDone());
+        assertFalse(future.cancel(true));
+        BeanInfo info = DefaultBeanInfoResolver.getBeanInfoHelper(WarmBean.class);
+        assertNotNull(info);
+        assertSame(info, new DefaultBeanInfoResolver().getBeanInfo(WarmBean.class));
+    }
+
+    /**
+     * Test of warmUp method with a class of another class loader, kept after
+     * a garbage collection, of class DefaultBeanInfoResolver.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWarmUpPlugin() throws Exception {
+        System.out.println("warmUpPlugin");
+        URL classes = WarmBean.class.getProtectionDomain().getCodeSource().getLocation();
+        Class<?> type = new URLClassLoader(new URL[]{classes}, null).loadClass(WarmBean.class.getName());
+        Future<Integer> future = DefaultBeanInfoResolver.warmUp(Arrays.<Class<?>>asList(type));
+        assertEquals(1, future.get(10, TimeUnit.SECONDS).intValue());
+        WeakReference<BeanInfo> warmed = new WeakReference<BeanInfo>(DefaultBeanInfoResolver.getBeanInfoHelper(type));
+        for (int ii = 0; ii < 5; ii++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNotNull(warmed.get());
+        assertSame(warmed.get(), DefaultBeanInfoResolver.getBeanInfoHelper(type));
+    }
+
+    /**
+     * Test of warmUp method with a package, of class DefaultBeanInfoResolver.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWarmUpPackage() throws Exception {
+        System.out.println("warmUpPackage");
+        ClassLoader loader = BeanInfoWarmUpTest.class.getClassLoader();
+        assertNull(DefaultBeanInfoResolver.getBeanInfoHelper(PackageBean.class));
+        Future<Integer> future = DefaultBeanInfoResolver.warmUp("com.l2fprod.common.beans", loader);
+        // the missing class is skipped
+        assertEquals(1, future.get(10, TimeUnit.SECONDS).intValue());
+        assertNotNull(DefaultBeanInfoResolver.getBeanInfoHelper(PackageBean.class));
+
+        future = DefaultBeanInfoResolver.warmUp("com.l2fprod.common.swing", loader);
+        assertEquals(0, future.get(10, TimeUnit.SECONDS).intValue());
+    }
+
+    /**
+     * Test of warmUp method with an executor rejecting the classes, of class
+     * DefaultBeanInfoResolver.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWarmUpRejected() throws Exception {
+        System.out.println("warmUpRejected");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        Collection<Class<?>> classes = Arrays.<Class<?>>asList(WarmBean.class, String.class);
+        Future<Integer> future = DefaultBeanInfoResolver.warmUp(classes, executor);
+        assertTrue(future.isDone());
+        assertEquals(0, future.get(10, TimeUnit.SECONDS).intValue());
+    }
+}
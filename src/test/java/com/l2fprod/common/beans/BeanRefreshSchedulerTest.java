@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.beans;
+
+import com.l2fprod.common.propertysheet.Property;
+import com.l2fprod.common.propertysheet.PropertySheetPanel;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class BeanRefreshSchedulerTest {
+
+    public static class TestBean {
+
+        final AtomicInteger reads = new AtomicInteger();
+        volatile int level;
+
+        public int getLevel() {
+            reads.incrementAndGet();
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+    }
+
+    public static class SlowBean {
+
+        volatile long pause;
+
+        public int getLevel() {
+            try {
+                Thread.sleep(pause);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Executor recording the delays of the reads, in milliseconds.
+     */
+    static class RecordingExecutor extends ScheduledThreadPoolExecutor {
+
+        final List<Long> delays = Collections.synchronizedList(new ArrayList<Long>());
+
+        RecordingExecutor() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            delays.add(unit.toMillis(delay));
+            return super.schedule(command, delay, unit);
+        }
+    }
+
+    public static class TestPanel extends PropertySheetPanel {
+
+        volatile boolean showing = true;
+
+        @Override
+        public boolean isShowing() {
+            return showing;
+        }
+
+        void setShowing(boolean value) {
+            showing = value;
+            HierarchyEvent event = new HierarchyEvent(this, HierarchyEvent.HIERARCHY_CHANGED,
+                    this, getParent(), HierarchyEvent.SHOWING_CHANGED);
+            for (HierarchyListener listener : getHierarchyListeners()) {
+                listener.hierarchyChanged(event);
+            }
+        }
+    }
+
+    public BeanRefreshSchedulerTest() {
+    }
+
+    /**
+     * Test of schedule method, of class BeanRefreshScheduler.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSchedule() throws Exception {
+        System.out.println("schedule");
+        TestBean bean = new TestBean();
+        final TestPanel sheet = new TestPanel();
+        BeanBinder binder = new BeanBinder(bean, sheet);
+        BeanRefreshScheduler scheduler = new BeanRefreshScheduler();
+        scheduler.schedule(binder, 10, TimeUnit.MILLISECONDS);
+
+        bean.setLevel(5);
+        assertEquals(5, getValue(sheet, "level", 5));
+
+        sheet.setShowing(false);
+        Thread.sleep(100);
+        int reads = bean.reads.get();
+        Thread.sleep(100);
+        assertEquals(reads, bean.reads.get());
+
+        sheet.setShowing(true);
+        bean.setLevel(6);
+        assertEquals(6, getValue(sheet, "level", 6));
+
+        binder.unbind();
+        Thread.sleep(100);
+        reads = bean.reads.get();
+        Thread.sleep(100);
+        assertEquals(reads, bean.reads.get());
+        scheduler.shutdown();
+    }
+
+    /**
+     * Test of the delay between slow reads, of class BeanRefreshScheduler.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBackoff() throws Exception {
+        System.out.println("schedule: backoff");
+        SlowBean bean = new SlowBean();
+        BeanBinder binder = new BeanBinder(bean, new TestPanel());
+        RecordingExecutor executor = new RecordingExecutor();
+        BeanRefreshScheduler scheduler = new BeanRefreshScheduler(executor);
+        bean.pause = 40;
+        scheduler.schedule(binder, 1, TimeUnit.MILLISECONDS);
+        assertTrue("grows", waitForDelay(executor, BeanRefreshScheduler.MAX_BACKOFF));
+
+        bean.pause = 0;
+        assertTrue("shrinks", waitForDelay(executor, 1));
+        scheduler.shutdown();
+        executor.shutdown();
+        synchronized (executor.delays) {
+            assertEquals(BeanRefreshScheduler.MAX_BACKOFF, Collections.max(executor.delays).intValue());
+        }
+    }
+
+    /**
+     * Wait for the last delay of an executor to be a value.
+     */
+    private static boolean waitForDelay(RecordingExecutor executor, long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (executor.delays) {
+                if (!executor.delays.isEmpty() && executor.delays.get(executor.delays.size() - 1) == millis) {
+                    return true;
+                }
+            }
+            Thread.sleep(5);
+        }
+        return false;
+    }
+
+    /**
+     * Wait for the value of a property, as seen from the EDT.
+     */
+    private static Object getValue(final PropertySheetPanel sheet, final String name, Object expected)
+            throws Exception {
+        final Object[] value = new Object[1];
+        long deadline = System.currentTimeMillis() + 5000;
+        do {
+            Thread.sleep(10);
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    for (Property property : sheet.getProperties()) {
+                        if (name.equals(property.getName())) {
+                            value[0] = property.getValue();
+                        }
+                    }
+                }
+            });
+        } while (!expected.equals(value[0]) && System.currentTimeMillis() < deadline);
+        return value[0];
+    }
+}
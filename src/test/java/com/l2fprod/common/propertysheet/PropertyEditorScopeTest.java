@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.propertysheet;
+
+import com.l2fprod.common.beans.editor.IntegerPropertyEditor;
+import com.l2fprod.common.beans.editor.StringPropertyEditor;
+import com.l2fprod.common.swing.renderer.ColorCellRenderer;
+import java.beans.PropertyEditor;
+import javax.swing.table.TableCellRenderer;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class PropertyEditorScopeTest {
+
+    public PropertyEditorScopeTest() {
+    }
+
+    /**
+     * Test of getEditor method, of class PropertyEditorScope.
+     */
+    @Test
+    public void testEditorOverrides() {
+        System.out.println("getEditor: scoped");
+        PropertyEditorScope scope = PropertyEditorRegistry.INSTANCE.createScope();
+        assertTrue(scope.getEditor(int.class) instanceof IntegerPropertyEditor);
+        assertNull(scope.getEditor(PropertyEditorScopeTest.class));
+
+        PropertyEditor shared = new StringPropertyEditor();
+        scope.registerEditor(int.class, shared);
+        scope.registerEditor(PropertyEditorScopeTest.class, StringPropertyEditor.class);
+        assertSame(shared, scope.getEditor(int.class));
+        assertTrue(scope.getEditor(PropertyEditorScopeTest.class) instanceof StringPropertyEditor);
+
+        // the overrides are not visible from the registry nor from a sibling
+        assertTrue(PropertyEditorRegistry.INSTANCE.getEditor(int.class) instanceof IntegerPropertyEditor);
+        assertNull(PropertyEditorRegistry.INSTANCE.getEditor(PropertyEditorScopeTest.class));
+        assertTrue(PropertyEditorRegistry.INSTANCE.createScope().getEditor(int.class) instanceof IntegerPropertyEditor);
+
+        // a child sees the snapshot of its parent only
+        PropertyEditorScope child = scope.createScope();
+        scope.unregisterEditor(int.class);
+        assertTrue(scope.getEditor(int.class) instanceof IntegerPropertyEditor);
+        assertSame(shared, child.getEditor(int.class));
+
+        DefaultProperty property = new DefaultProperty();
+        property.setType(int.class);
+        child.registerEditor(property, StringPropertyEditor.class);
+        assertTrue(child.getEditor(property) instanceof StringPropertyEditor);
+        assertTrue(scope.getEditor(property) instanceof IntegerPropertyEditor);
+    }
+
+    /**
+     * Test of getRenderer method, of class PropertyRendererScope.
+     */
+    @Test
+    public void testRendererOverrides() {
+        System.out.println("getRenderer: scoped");
+        PropertyRendererRegistry registry = new PropertyRendererRegistry();
+        PropertyRendererScope scope = registry.createScope();
+        TableCellRenderer renderer = scope.getRenderer(Integer.class);
+        assertNotNull(renderer);
+        assertSame(renderer, scope.getRenderer(Integer.class));
+        assertNull(scope.getRenderer(PropertyEditorScopeTest.class));
+
+        scope.registerRenderer(Integer.class, ColorCellRenderer.class);
+        assertTrue(scope.getRenderer(Integer.class) instanceof ColorCellRenderer);
+        assertFalse(registry.getRenderer(Integer.class) instanceof ColorCellRenderer);
+
+        PropertyRendererScope child = scope.createScope();
+        scope.unregisterRenderer(Integer.class);
+        assertSame(renderer, scope.getRenderer(Integer.class));
+        assertTrue(child.getRenderer(Integer.class) instanceof ColorCellRenderer);
+    }
+}
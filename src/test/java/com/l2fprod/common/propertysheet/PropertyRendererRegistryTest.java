@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.propertysheet;
+
+import com.l2fprod.common.annotations.PropertyRendererOverride;
+import com.l2fprod.common.beans.ExtendedPropertyDescriptor;
+import com.l2fprod.common.swing.renderer.ColorCellRenderer;
+import com.l2fprod.common.swing.renderer.DateRenderer;
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import javax.swing.table.TableCellRenderer;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class PropertyRendererRegistryTest {
+
+    public static class TestBean {
+
+        private String value;
+        private int readOnly;
+
+        @PropertyRendererOverride(type = DateRenderer.class)
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public int getReadOnly() {
+            return readOnly;
+        }
+    }
+
+    public PropertyRendererRegistryTest() {
+    }
+
+    /**
+     * Test of getRenderer method, of class PropertyRendererRegistry.
+     *
+     * @throws IntrospectionException
+     */
+    @Test
+    public void testOverrideRendererIsShared() throws IntrospectionException {
+        System.out.println("getRenderer: override");
+        PropertyDescriptor descriptor = ExtendedPropertyDescriptor.newPropertyDescriptor("value", TestBean.class);
+        PropertyRendererRegistry registry = new PropertyRendererRegistry();
+        TableCellRenderer renderer = registry.getRenderer(new PropertyDescriptorAdapter(descriptor));
+        assertTrue(renderer instanceof DateRenderer);
+        assertSame(renderer, registry.getRenderer(new PropertyDescriptorAdapter(descriptor)));
+        assertSame(renderer, new PropertyRendererRegistry().getRenderer(new PropertyDescriptorAdapter(descriptor)));
+    }
+
+    /**
+     * Test of getRenderer method, of class PropertyRendererRegistry.
+     *
+     * @throws IntrospectionException
+     */
+    @Test
+    public void testExtendedRendererClassChange() throws IntrospectionException {
+        System.out.println("getRenderer: extended descriptor");
+        ExtendedPropertyDescriptor descriptor = ExtendedPropertyDescriptor.newPropertyDescriptor("readOnly", TestBean.class);
+        PropertyRendererRegistry registry = new PropertyRendererRegistry();
+        PropertyDescriptorAdapter property = new PropertyDescriptorAdapter(descriptor);
+        assertFalse(registry.getRenderer(property) instanceof ColorCellRenderer);
+
+        descriptor.setPropertyTableRendererClass(ColorCellRenderer.class);
+        TableCellRenderer renderer = registry.getRenderer(property);
+        assertTrue(renderer instanceof ColorCellRenderer);
+        assertSame(renderer, registry.getRenderer(property));
+
+        // read-only properties have no write method to look for an editor override
+        assertNotNull(PropertyEditorRegistry.INSTANCE.getEditor(property));
+    }
+}
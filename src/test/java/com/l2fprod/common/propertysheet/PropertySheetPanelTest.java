@@ -0,0 +1,351 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.propertysheet;
+
+import com.l2fprod.common.beans.DefaultBeanInfoResolver;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class PropertySheetPanelTest {
+
+    public PropertySheetPanelTest() {
+    }
+
+    /**
+     * Test of readFromObject method, of class PropertySheetPanel.
+     */
+    @Test
+    public void testIncrementalRead() {
+        System.out.println("readFromObject: incremental");
+        PropertySheetPanel panel = new PropertySheetPanel();
+        panel.setProperties(new Property[]{
+            newProperty("first", String.class),
+            newProperty("second", int.class),
+            newProperty("third", String.class)});
+        Bean bean = new Bean();
+        panel.readFromObject(bean);
+
+        final List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+        panel.getTable().getModel().addTableModelListener(new TableModelListener() {
+            @Override
+            public void tableChanged(TableModelEvent e) {
+                events.add(e);
+            }
+        });
+
+        panel.setIncrementalRead(true);
+        assertTrue(panel.isIncrementalRead());
+        bean.setFirst(new String("one"));
+        panel.readFromObject(bean);
+        assertTrue(events.isEmpty());
+
+        bean.setSecond(2);
+        bean.setThird("three");
+        panel.readFromObject(bean);
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.UPDATE, events.get(0).getType());
+        assertEquals(1, events.get(0).getFirstRow());
+        assertEquals(2, events.get(0).getLastRow());
+        assertEquals(2, panel.getProperties()[1].getValue());
+        assertEquals("three", panel.getProperties()[2].getValue());
+    }
+
+    /**
+     * Test of writeDirtyToObject method, of class PropertySheetPanel.
+     */
+    @Test
+    public void testWriteDirty() {
+        System.out.println("writeDirtyToObject");
+        PropertySheetPanel panel = new PropertySheetPanel();
+        panel.setProperties(new Property[]{
+            newProperty("third", String.class),
+            newProperty("first", String.class),
+            newProperty("second", int.class)});
+        Bean bean = new Bean();
+        panel.readFromObject(bean);
+        assertEquals(0, panel.getDirtyProperties().length);
+
+        Property[] properties = panel.getProperties();
+        properties[1].setValue("one");
+        assertEquals(0, panel.getDirtyProperties().length);
+        properties[2].setValue(2);
+        properties[0].setValue("three");
+        assertTrue(((AbstractProperty) properties[2]).isDirty());
+        assertArrayEquals(new Property[]{properties[0], properties[2]}, panel.getDirtyProperties());
+
+        Bean other = new Bean();
+        assertArrayEquals(new Property[]{properties[0], properties[2]}, panel.writeDirtyToObject(other));
+        assertEquals("three", other.getThird());
+        assertEquals(2, other.getSecond());
+        assertEquals(0, panel.getDirtyProperties().length);
+        assertEquals(0, panel.writeDirtyToObject(other).length);
+
+        properties[1].setValue("uno");
+        panel.clearDirty();
+        assertEquals(0, panel.writeDirtyToObject(other).length);
+        assertEquals("one", other.getFirst());
+    }
+
+    /**
+     * Test of setNestedBeanDepth method, of class PropertySheetPanel.
+     */
+    @Test
+    public void testNestedBeans() {
+        System.out.println("setNestedBeanDepth");
+        Person person = new Person();
+        person.address.resident = new Person();
+        PropertySheetPanel panel = new PropertySheetPanel();
+        panel.setNestedBeanDepth(2);
+        assertEquals(2, panel.getNestedBeanDepth());
+        panel.setProperties(new DefaultBeanInfoResolver().getBeanInfo(Person.class).getPropertyDescriptors());
+        panel.readFromObject(person);
+        PropertySheetTableModel model = panel.getTable().getSheetModel();
+        assertEquals(3, model.getRowCount());
+
+        // read when expanded only
+        assertEquals(0, person.address.reads);
+        PropertySheetTableModel.Item address = getItem(model, "address");
+        assertTrue(address.hasToggle());
+        assertNull(address.getProperty().getSubProperties());
+        assertFalse(getItem(model, "name").hasToggle());
+        assertFalse("cycle", getItem(model, "self").hasToggle());
+
+        address.toggle();
+        assertEquals(1, person.address.reads);
+        assertEquals(6, model.getRowCount());
+        assertFalse("cycle", getItem(model, "owner").hasToggle());
+        PropertySheetTableModel.Item resident = getItem(model, "resident");
+        assertTrue(resident.hasToggle());
+        resident.toggle();
+        assertEquals(9, model.getRowCount());
+        assertFalse("depth", getItem(model, "address", 1).hasToggle());
+
+        // edits go to the nested bean
+        ((AbstractProperty) address.getProperty()).setDirty(false);
+        getItem(model, "city").getProperty().setValue("Paris");
+        assertEquals("Paris", person.address.city);
+        assertTrue(((AbstractProperty) address.getProperty()).isDirty());
+
+        person.address.city = "Lyon";
+        panel.readFromObject(person);
+        assertEquals("Lyon", getItem(model, "city").getProperty().getValue());
+    }
+
+    /**
+     * Test of the sub-properties of a value changing class, of class
+     * PropertySheetPanel.
+     */
+    @Test
+    public void testNestedValueChange() {
+        System.out.println("setNestedBeanDepth: value change");
+        Drawing drawing = new Drawing();
+        drawing.setShape(new Circle());
+        PropertySheetPanel panel = new PropertySheetPanel();
+        panel.setNestedBeanDepth(1);
+        panel.setProperties(new DefaultBeanInfoResolver().getBeanInfo(Drawing.class).getPropertyDescriptors());
+        panel.readFromObject(drawing);
+        PropertySheetTableModel model = panel.getTable().getSheetModel();
+        PropertySheetTableModel.Item shape = getItem(model, "shape");
+        shape.toggle();
+        assertEquals(2, model.getRowCount());
+        assertEquals(1, getItem(model, "radius").getProperty().getValue());
+
+        // another class, the rows of the previous one are removed
+        drawing.setShape(new Square());
+        panel.readFromObject(drawing);
+        assertEquals(1, model.getRowCount());
+        assertNull(shape.getProperty().getSubProperties());
+        assertTrue(shape.hasToggle());
+        shape.toggle();
+        assertEquals(2, model.getRowCount());
+        assertEquals(2, getItem(model, "side").getProperty().getValue());
+
+        // the same class, the rows are kept
+        Square square = new Square();
+        square.setSide(3);
+        drawing.setShape(square);
+        panel.readFromObject(drawing);
+        assertEquals(2, model.getRowCount());
+        assertEquals(3, getItem(model, "side").getProperty().getValue());
+
+        // edited
+        shape.getProperty().setValue(new Circle());
+        assertEquals(1, model.getRowCount());
+        shape.toggle();
+        assertEquals(2, model.getRowCount());
+
+        drawing.setShape(null);
+        panel.readFromObject(drawing);
+        assertEquals(1, model.getRowCount());
+        assertFalse(shape.hasToggle());
+
+        // the toggle does not introspect, it goes when nothing is found
+        drawing.setShape(new Blank());
+        panel.readFromObject(drawing);
+        assertTrue(shape.hasToggle());
+        shape.toggle();
+        assertFalse(shape.hasToggle());
+        assertEquals(1, model.getRowCount());
+    }
+
+    private static PropertySheetTableModel.Item getItem(PropertySheetTableModel model, String name) {
+        return getItem(model, name, 0);
+    }
+
+    private static PropertySheetTableModel.Item getItem(PropertySheetTableModel model, String name, int skip) {
+        int found = 0;
+        for (int row = 0; row < model.getRowCount(); row++) {
+            PropertySheetTableModel.Item item = model.getPropertySheetElement(row);
+            if (item.isProperty() && name.equals(item.getProperty().getName()) && found++ == skip) {
+                return item;
+            }
+        }
+        throw new AssertionError(name);
+    }
+
+    private static Property newProperty(String name, Class<?> type) {
+        DefaultProperty property = new DefaultProperty();
+        property.setName(name);
+        property.setType(type);
+        return property;
+    }
+
+    public static class Bean {
+
+        private String first = "one";
+        private int second = 1;
+        private String third;
+
+        public String getFirst() {
+            return first;
+        }
+
+        public void setFirst(String first) {
+            this.first = first;
+        }
+
+        public int getSecond() {
+            return second;
+        }
+
+        public void setSecond(int second) {
+            this.second = second;
+        }
+
+        public String getThird() {
+            return third;
+        }
+
+        public void setThird(String third) {
+            this.third = third;
+        }
+    }
+
+    public static class Person {
+
+        private final Address address = new Address(this);
+        private String name = "name";
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Person getSelf() {
+            return this;
+        }
+    }
+
+    public static class Address {
+
+        private final Person owner;
+        private Person resident;
+        private String city = "city";
+        private int reads;
+
+        Address(Person owner) {
+            this.owner = owner;
+        }
+
+        public String getCity() {
+            reads++;
+            return city;
+        }
+
+        public void setCity(String city) {
+            this.city = city;
+        }
+
+        public Person getOwner() {
+            return owner;
+        }
+
+        public Person getResident() {
+            return resident;
+        }
+    }
+
+    public static class Drawing {
+
+        private Object shape;
+
+        public Object getShape() {
+            return shape;
+        }
+
+        public void setShape(Object shape) {
+            this.shape = shape;
+        }
+    }
+
+    public static class Circle {
+
+        public int getRadius() {
+            return 1;
+        }
+    }
+
+    public static class Square {
+
+        private int side = 2;
+
+        public int getSide() {
+            return side;
+        }
+
+        public void setSide(int side) {
+            this.side = side;
+        }
+    }
+
+    public static class Blank {
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util;
+
+import com.l2fprod.common.beans.DefaultBeanInfoResolver;
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.SimpleBeanInfo;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class ClassCacheTest {
+
+    /**
+     * Bean loaded by a separate class loader.
+     */
+    public static class PluginBean {
+
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public ClassCacheTest() {
+    }
+
+    /**
+     * Test of concurrent first access to a value.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void testConcurrentGet() throws InterruptedException {
+        System.out.println("concurrentGet");
+        final AtomicInteger computed = new AtomicInteger();
+        final ClassCache<Object> cache = new ClassCache<Object>() {
+            @Override
+            protected Object computeValue(Class<?> type) {
+                computed.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Object();
+            }
+        };
+        final CountDownLatch start = new CountDownLatch(1);
+        final Object[] results = new Object[8];
+        Thread[] threads = new Thread[results.length];
+        for (int ii = 0; ii < threads.length; ii++) {
+            final int index = ii;
+            threads[ii] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    results[index] = cache.get(PluginBean.class);
+                }
+            });
+            threads[ii].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, computed.get());
+        for (Object result : results) {
+            assertSame(results[0], result);
+        }
+        assertSame(results[0], cache.getIfPresent(PluginBean.class));
+        assertNull(cache.getIfPresent(String.class));
+
+        cache.remove(PluginBean.class);
+        assertNotSame(results[0], cache.get(PluginBean.class));
+        assertEquals(2, computed.get());
+    }
+
+    /**
+     * Test of a failing computation, retried on next use.
+     */
+    @Test
+    public void testFailure() {
+        System.out.println("failure");
+        final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>(
+                new IllegalStateException("failed"));
+        ClassCache<String> cache = new ClassCache<String>() {
+            @Override
+            protected String computeValue(Class<?> type) {
+                RuntimeException ex = failure.getAndSet(null);
+                if (ex != null) {
+                    throw ex;
+                }
+                return type.getName();
+            }
+        };
+        try {
+            cache.get(PluginBean.class);
+            fail("computation failed");
+        } catch (IllegalStateException ex) {
+        }
+        assertNull(cache.getIfPresent(PluginBean.class));
+        assertEquals(PluginBean.class.getName(), cache.get(PluginBean.class));
+    }
+
+    /**
+     * Test of a computation asking for its own value.
+     */
+    @Test(timeout = 10000)
+    public void testRecursion() {
+        System.out.println("recursion");
+        final AtomicInteger depth = new AtomicInteger();
+        ClassCache<String> cache = new ClassCache<String>() {
+            @Override
+            protected String computeValue(Class<?> type) {
+                if (depth.incrementAndGet() == 1) {
+                    try {
+                        get(type);
+                        fail("recursion");
+                    } catch (IllegalStateException ex) {
+                        return "recursion failed";
+                    }
+                }
+                return type.getName();
+            }
+        };
+        assertEquals("recursion failed", cache.get(PluginBean.class));
+        assertEquals(1, depth.get());
+    }
+
+    /**
+     * Test of the collection of a class loader whose classes have values.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnloading() throws Exception {
+        System.out.println("unloading");
+        ClassCache<Object[]> cache = new ClassCache<Object[]>() {
+            @Override
+            protected Object[] computeValue(Class<?> type) {
+                return new Object[]{type};
+            }
+        };
+        WeakReference<ClassLoader> loader = loadPlugin(cache);
+        for (int ii = 0; ii < 100 && loader.get() != null; ii++) {
+            Introspector.flushCaches();
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(loader.get());
+    }
+
+    /**
+     * Test the values of classes from other class loaders are kept after a
+     * garbage collection.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPluginValueKept() throws Exception {
+        System.out.println("pluginValueKept");
+        final AtomicInteger computed = new AtomicInteger();
+        ClassCache<Object> cache = new ClassCache<Object>() {
+            @Override
+            protected Object computeValue(Class<?> type) {
+                computed.incrementAndGet();
+                return new Object();
+            }
+        };
+        Class<?> type = newPluginLoader().loadClass(PluginBean.class.getName());
+        WeakReference<Object> value = new WeakReference<Object>(cache.get(type));
+        for (int ii = 0; ii < 5; ii++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNotNull(value.get());
+        assertSame(value.get(), cache.get(type));
+        assertEquals(1, computed.get());
+    }
+
+    /**
+     * Test the BeanInfo added for a class of another class loader is kept
+     * after a garbage collection.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAddedBeanInfoKept() throws Exception {
+        System.out.println("addedBeanInfoKept");
+        Class<?> type = newPluginLoader().loadClass(PluginBean.class.getName());
+        BeanInfo info = new SimpleBeanInfo();
+        DefaultBeanInfoResolver.addBeanInfo(type, info);
+        WeakReference<BeanInfo> added = new WeakReference<BeanInfo>(info);
+        info = null;
+        for (int ii = 0; ii < 5; ii++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNotNull(added.get());
+        assertSame(added.get(), DefaultBeanInfoResolver.getBeanInfoHelper(type));
+        assertSame(added.get(), new DefaultBeanInfoResolver().getBeanInfo(type));
+    }
+
+    private WeakReference<ClassLoader> loadPlugin(ClassCache<Object[]> cache) throws Exception {
+        ClassLoader loader = newPluginLoader();
+        Class<?> type = loader.loadClass(PluginBean.class.getName());
+        assertNotSame(PluginBean.class, type);
+
+        assertSame(type, cache.get(type)[0]);
+        assertNull(cache.getIfPresent(PluginBean.class));
+        BeanInfo info = new DefaultBeanInfoResolver().getBeanInfo(type);
+        assertNotNull(info);
+        assertSame(info, new DefaultBeanInfoResolver().getBeanInfo(type));
+        assertNotSame(info, new DefaultBeanInfoResolver().getBeanInfo(PluginBean.class));
+        return new WeakReference<ClassLoader>(loader);
+    }
+
+    private static ClassLoader newPluginLoader() {
+        URL classes = PluginBean.class.getProtectionDomain().getCodeSource().getLocation();
+        return new URLClassLoader(new URL[]{classes}, null);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util;
+
+import com.l2fprod.common.beans.editor.IntegerPropertyEditor;
+import com.l2fprod.common.propertysheet.PropertyEditorRegistry;
+import com.l2fprod.common.util.converter.ConverterRegistry;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class RegistryMetricsTest {
+
+    public RegistryMetricsTest() {
+    }
+
+    /**
+     * Test of getSnapshot method, of class RegistryMetrics.
+     */
+    @Test
+    public void testCounts() {
+        System.out.println("getSnapshot");
+        RegistryMetrics metrics = new RegistryMetrics("test");
+        metrics.lookup(String.class, true);
+        assertTrue(metrics.getSnapshot().getTypes().isEmpty());
+
+        metrics.setEnabled(true);
+        metrics.lookup(String.class, true);
+        metrics.lookup(String.class, false);
+        metrics.fallback(String.class);
+        metrics.setSlowThreshold(0);
+        metrics.instantiated(Object.class, metrics.start());
+
+        RegistryMetrics.Snapshot snapshot = metrics.getSnapshot();
+        assertEquals("test", snapshot.getName());
+        RegistryMetrics.TypeStatistics statistics = snapshot.getType(String.class);
+        assertEquals(2, statistics.getLookups());
+        assertEquals(1, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+        assertEquals(1, statistics.getFallbacks());
+        assertEquals(0, snapshot.getType(Integer.class).getLookups());
+        assertEquals(1, snapshot.getProviders().get(Object.class).getCount());
+
+        metrics.reset();
+        assertTrue(metrics.getSnapshot().getTypes().isEmpty());
+        assertTrue(metrics.getSnapshot().getProviders().isEmpty());
+    }
+
+    /**
+     * Test of the metrics of the registries.
+     */
+    @Test
+    public void testRegistries() {
+        System.out.println("getMetrics");
+        RegistryMetrics metrics = PropertyEditorRegistry.INSTANCE.getMetrics();
+        metrics.setEnabled(true);
+        try {
+            metrics.reset();
+            PropertyEditorRegistry.INSTANCE.getEditor(int.class);
+            PropertyEditorRegistry.INSTANCE.getEditor(RegistryMetricsTest.class);
+            RegistryMetrics.Snapshot snapshot = metrics.getSnapshot();
+            assertEquals(1, snapshot.getType(int.class).getHits());
+            assertEquals(1, snapshot.getType(RegistryMetricsTest.class).getMisses());
+            assertEquals(1, snapshot.getProviders().get(IntegerPropertyEditor.class).getCount());
+        } finally {
+            metrics.setEnabled(false);
+            metrics.reset();
+        }
+
+        metrics = ConverterRegistry.instance().getMetrics();
+        metrics.setEnabled(true);
+        try {
+            ConverterRegistry.instance().convert(Integer.class, "1");
+            assertEquals(1, metrics.getSnapshot().getType(Integer.class).getHits());
+        } finally {
+            metrics.setEnabled(false);
+            metrics.reset();
+        }
+    }
+}
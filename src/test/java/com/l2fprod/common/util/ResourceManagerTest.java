@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util;
+
+import java.util.MissingResourceException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class ResourceManagerTest {
+
+    public ResourceManagerTest() {
+    }
+
+    /**
+     * Test of find method, of class ResourceManager.
+     */
+    @Test
+    public void testFind() {
+        System.out.println("find");
+        ResourceManager rm = ResourceManager.find("com.l2fprod.common.swing.AllRB");
+        assertNotNull(rm);
+        assertSame(rm, ResourceManager.find("com.l2fprod.common.swing.AllRB"));
+        assertTrue(rm.containsKey("ok"));
+        assertEquals(rm.getString("ok"), rm.findString("ok"));
+        assertFalse(rm.containsKey("missing"));
+        assertNull(rm.findString("missing"));
+
+        assertNull(ResourceManager.find(ResourceManagerTest.class));
+        assertNull(ResourceManager.find(ResourceManagerTest.class));
+        try {
+            ResourceManager.get(ResourceManagerTest.class);
+            fail("missing bundle");
+        } catch (MissingResourceException ex) {
+        }
+    }
+}
@@ -142,4 +142,55 @@ public class AWTConvertersTest {
         }
     }
 
+    /**
+     * Test of the scanner and appenders of class AWTConverters.
+     */
+    @Test
+    public void testRoundTrip() {
+        System.out.println("roundTrip");
+        AWTConverters instance = new AWTConverters();
+
+        Rectangle r = new Rectangle(-1, 2, 30, 400);
+        assertEquals("-1.0 2.0 30.0 400.0", instance.convert(String.class, r));
+        assertEquals(r, instance.convert(Rectangle.class, instance.convert(String.class, r)));
+        assertEquals(r, instance.convert(Rectangle.class, "  -1  2.0\t 3e1 400 "));
+        assertEquals(r, instance.convert(Rectangle.class, new StringBuilder("-1 2 30 400")));
+
+        Insets i = new Insets(1, -2, 3, 4);
+        assertEquals("1 -2 3 4", instance.convert(String.class, i));
+        assertEquals(i, instance.convert(Insets.class, instance.convert(String.class, i)));
+
+        Dimension d = new Dimension(10, 20);
+        assertEquals("10.0 x 20.0", instance.convert(String.class, d));
+        assertEquals(d, instance.convert(Dimension.class, instance.convert(String.class, d)));
+        assertEquals(d, instance.convert(Dimension.class, "10x20"));
+        assertEquals(d, instance.convert(Dimension.class, "x 10 xx 20 x"));
+
+        Point p = new Point(5, -6);
+        assertEquals("5.0 -6.0", instance.convert(String.class, p));
+        assertEquals(p, instance.convert(Point.class, instance.convert(String.class, p)));
+        assertEquals(p, instance.convert(Point.class, "5.0E0 -6"));
+
+        StringBuilder builder = new StringBuilder("p=");
+        AWTConverters.appendTo(builder, p).append(';');
+        assertEquals("p=5.0 -6.0;", builder.toString());
+
+        String[] invalid = {"", " ", "1", "1 2 3", "1 2 a", "1 2 3 4 5", "1 2 3 \t"};
+        for (String text : invalid) {
+            try {
+                instance.convert(Rectangle.class, text);
+                fail(text);
+            } catch (IllegalArgumentException ex) {
+            }
+        }
+        String[] invalidDimensions = {"10", "10 20", "10 x 20 x 30", "10 x 2 0", "x"};
+        for (String text : invalidDimensions) {
+            try {
+                instance.convert(Dimension.class, text);
+                fail(text);
+            } catch (IllegalArgumentException ex) {
+            }
+        }
+    }
+
 }
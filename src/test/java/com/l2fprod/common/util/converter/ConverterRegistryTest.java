@@ -15,6 +15,20 @@
  */
 package com.l2fprod.common.util.converter;
 
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -68,4 +82,320 @@ public class ConverterRegistryTest {
         String res = (String) ConverterRegistry.instance().convert(String.class, test);
         assertEquals(test, res);
     }
+
+    /**
+     * Test of createScope method, of class ConverterRegistry.
+     */
+    @Test
+    public void testScope() {
+        System.out.println("createScope");
+        ConverterScope scope = ConverterRegistry.instance().createScope();
+        assertEquals(Integer.valueOf(3), scope.convert(Integer.class, "3"));
+        assertNull(scope.getConverter(ConverterRegistry.class, Integer.class));
+
+        Converter converter = new Converter() {
+            @Override
+            public Object convert(Class<?> type, Object value) {
+                return Integer.valueOf(-1);
+            }
+
+            @Override
+            public void register(Registry registry) {
+                registry.addConverter(String.class, Integer.class, this);
+            }
+        };
+        converter.register(scope);
+        assertEquals(Integer.valueOf(-1), scope.convert(Integer.class, "3"));
+        assertEquals(Integer.valueOf(3), ConverterRegistry.instance().convert(Integer.class, "3"));
+
+        ConverterScope child = scope.createScope();
+        assertSame(converter, child.getConverter(String.class, Integer.class));
+        assertNotNull(child.getConverter(Integer.class, String.class));
+    }
+
+    /**
+     * Test of getConverter method, of class ConverterRegistry.
+     */
+    @Test
+    public void testResolvedConverter() {
+        System.out.println("getConverter: resolved");
+        ConverterRegistry registry = ConverterRegistry.instance();
+        Rectangle rectangle = new Rectangle(1, 2, 3, 4) {
+        };
+        assertEquals("1.0 2.0 3.0 4.0", registry.convert(String.class, rectangle));
+        assertSame(registry.getConverter(Rectangle.class, String.class),
+                registry.getConverter(rectangle.getClass(), String.class));
+
+        // Point -> Dimension -> Rectangle
+        ConverterScope scope = registry.createScope();
+        scope.addConverter(Point.class, Dimension.class, new Converter() {
+            @Override
+            public Object convert(Class<?> type, Object value) {
+                return new Dimension(((Point) value).x, ((Point) value).y);
+            }
+
+            @Override
+            public void register(Registry registry) {
+            }
+        });
+        scope.addConverter(Dimension.class, Rectangle.class, new Converter() {
+            @Override
+            public Object convert(Class<?> type, Object value) {
+                return new Rectangle((Dimension) value);
+            }
+
+            @Override
+            public void register(Registry registry) {
+            }
+        });
+        Converter converter = scope.getConverter(Point.class, Rectangle.class);
+        assertNotNull(converter);
+        assertSame(converter, scope.getConverter(Point.class, Rectangle.class));
+        assertEquals(new Rectangle(0, 0, 3, 4), converter.convert(Rectangle.class, new Point(3, 4)));
+        assertEquals(new Rectangle(0, 0, 3, 4), scope.convert(Rectangle.class, new Point(3, 4)));
+        // no round trip through another type
+        assertNull(registry.getConverter(Boolean.class, Boolean.class));
+        // impossible conversions are cached too
+        assertNull(registry.getConverter(ConverterRegistryTest.class, String.class));
+        assertNull(registry.getConverter(ConverterRegistryTest.class, String.class));
+    }
+
+    /**
+     * Test of the conversions which may lose data, of class
+     * ConverterRegistry.
+     */
+    @Test
+    public void testLossyConversions() {
+        System.out.println("getConverter: lossy");
+        ConverterRegistry registry = ConverterRegistry.instance();
+        assertEquals("42", registry.convert(String.class, 42));
+
+        // the Number converters would narrow the value through a long
+        assertNull(registry.getConverter(BigInteger.class, String.class));
+        assertNull(registry.getConverter(BigDecimal.class, String.class));
+        assertNull(registry.getConverter(AtomicLong.class, String.class));
+        assertNull(registry.getConverter(BigInteger.class, Long.class));
+        assertConversionFails(registry, String.class, new BigInteger("123456789012345678901234567890"));
+        assertConversionFails(registry, String.class, new BigDecimal("0.1"));
+        assertConversionFails(registry, String.class, new AtomicLong(7));
+
+        // the text of a number is not a boolean
+        assertNull(registry.getConverter(Integer.class, Boolean.class));
+        assertConversionFails(registry, Boolean.class, 42);
+        // nor is every number an integer
+        assertNull(registry.getConverter(String.class, Number.class));
+        assertConversionFails(registry, Number.class, "1.5");
+        // the built-in converters are not chained through String
+        assertNull(registry.getConverter(Integer.class, Dimension.class));
+    }
+
+    private static void assertConversionFails(ConverterRegistry registry, Class<?> type, Object value) {
+        try {
+            registry.convert(type, value);
+            fail(value + " converted to " + type.getName());
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("No converter"));
+        }
+    }
+
+    /**
+     * Test of the primitive parse methods, of class ConverterRegistry.
+     */
+    @Test
+    public void testParsePrimitives() {
+        System.out.println("parse primitives");
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for (int ii = 0; ii < 10000; ii++) {
+            int i = random.nextInt() >> random.nextInt(32);
+            long l = random.nextLong() >> random.nextInt(64);
+            double d = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+            float f = (float) d;
+            assertEquals(i, ConverterRegistry.parseInt(Integer.toString(i)));
+            assertEquals(l, ConverterRegistry.parseLong(Long.toString(l)));
+            assertEquals(Double.doubleToLongBits(d), Double.doubleToLongBits(ConverterRegistry.parseDouble(Double.toString(d))));
+            assertEquals(Float.floatToIntBits(f), Float.floatToIntBits(ConverterRegistry.parseFloat(Float.toString(f))));
+
+            // short decimal forms, parsed in place
+            builder.setLength(0);
+            builder.append(random.nextInt(2000000) - 1000000).append('.').append(random.nextInt(1000));
+            if (random.nextBoolean()) {
+                builder.append('e').append(random.nextInt(30) - 15);
+            }
+            String text = builder.toString();
+            assertEquals(text, Double.parseDouble(text), ConverterRegistry.parseDouble(builder), 0);
+            assertEquals(text, Float.parseFloat(text), ConverterRegistry.parseFloat(builder), 0);
+        }
+        for (String text : new String[]{"0", "-0", "+7", "0.1", ".5", "5.", "1e22", "1e-22", "1E23", " 1.5 ",
+            "1.5d", "NaN", "-Infinity", "0x1p3", "123456789012345678"}) {
+            assertEquals(text, Double.parseDouble(text), ConverterRegistry.parseDouble(text), 0);
+            assertEquals(text, Float.parseFloat(text), ConverterRegistry.parseFloat(text), 0);
+        }
+        assertEquals(Integer.MIN_VALUE, ConverterRegistry.parseInt(String.valueOf(Integer.MIN_VALUE)));
+        assertEquals(Long.MAX_VALUE, ConverterRegistry.parseLong(String.valueOf(Long.MAX_VALUE)));
+        assertEquals(-128, ConverterRegistry.parseByte("-128"));
+        assertEquals(32767, ConverterRegistry.parseShort(new StringBuilder("32767")));
+        assertTrue(ConverterRegistry.parseBoolean("TRUE"));
+        assertFalse(ConverterRegistry.parseBoolean("yes"));
+        assertFalse(ConverterRegistry.parseBoolean(null));
+        assertEquals("1.5 true", ConverterRegistry.appendTo(ConverterRegistry.appendTo(new StringBuilder(), 1.5).append(' '), true).toString());
+
+        for (String text : new String[]{"", "-", "1.5", "12a", "2147483648", "1 "}) {
+            try {
+                ConverterRegistry.parseInt(text);
+                fail(text);
+            } catch (NumberFormatException ex) {
+                // same as Integer.parseInt
+            }
+        }
+        for (String text : new String[]{"128", "-129"}) {
+            try {
+                ConverterRegistry.parseByte(text);
+                fail(text);
+            } catch (NumberFormatException ex) {
+                // same as Byte.parseByte
+            }
+        }
+        for (String text : new String[]{"", ".", "-", "1e", "1.2.3", "e5"}) {
+            try {
+                ConverterRegistry.parseDouble(text);
+                fail(text);
+            } catch (NumberFormatException ex) {
+                // same as Double.parseDouble
+            }
+        }
+    }
+
+    /**
+     * Test of the bulk conversions of class ConverterRegistry.
+     */
+    @Test
+    public void testConvertAll() {
+        System.out.println("convertAll");
+        ConverterRegistry registry = ConverterRegistry.instance();
+
+        Integer[] ints = registry.convertAll(Integer.class, new Object[]{"1", null, 2.5d, "3"});
+        assertArrayEquals(new Integer[]{1, null, 2, 3}, ints);
+
+        String[] strings = new String[3];
+        assertSame(strings, registry.convertAll(String.class, new Object[]{1, 2}, strings));
+        assertArrayEquals(new String[]{"1", "2", null}, strings);
+
+        List<Double> doubles = registry.convertAll(Double.class, Arrays.asList("1.5", null, "-2"));
+        assertEquals(Arrays.asList(1.5d, null, -2d), doubles);
+
+        try {
+            registry.convertAll(Integer.class, new Object[]{"1", "2"}, new Integer[1]);
+            fail("short result");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            registry.convertAll(int.class, new Object[]{"1"});
+            fail("primitive target");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            registry.convertAll(Random.class, Arrays.asList("1"));
+            fail("no converter");
+        } catch (IllegalArgumentException ex) {
+        }
+
+        int count = ConverterRegistry.BULK_CHUNK_SIZE * 5 + 17;
+        String[] values = new String[count];
+        for (int ii = 0; ii < count; ii++) {
+            values[ii] = Integer.toString(ii);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Integer[] result = registry.convertAll(Integer.class, values, new Integer[count], executor);
+            for (int ii = 0; ii < count; ii++) {
+                assertEquals(ii, result[ii].intValue());
+            }
+            values[count / 2] = "invalid";
+            try {
+                registry.convertAll(Integer.class, values, new Integer[count], executor);
+                fail("invalid value");
+            } catch (NumberFormatException ex) {
+            }
+            // the failure of the calling thread, converting the last chunk, comes first
+            values[0] = "worker";
+            values[count - 1] = "caller";
+            try {
+                registry.convertAll(Integer.class, values, new Integer[count], executor);
+                fail("invalid value");
+            } catch (NumberFormatException ex) {
+                assertTrue(ex.getMessage(), ex.getMessage().contains("caller"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test of concurrent registrations and lookups of class ConverterRegistry.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void testConcurrentRegistration() throws InterruptedException {
+        System.out.println("concurrentRegistration");
+        // a registry of its own, the markers are not registered in the shared one
+        final ConverterRegistry registry = new ConverterRegistry();
+        final int count = 200;
+        final Class<?>[] types = new Class<?>[count];
+        for (int ii = 0; ii < count; ii++) {
+            types[ii] = Array.newInstance(Marker.class, new int[ii + 1]).getClass();
+        }
+        final Converter converter = new FileConverter();
+        final AtomicInteger registered = new AtomicInteger();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int ii = 0; ii < count; ii++) {
+                    registry.addConverter(Marker.class, types[ii], converter);
+                    registered.set(ii + 1);
+                }
+            }
+        });
+        Thread[] readers = new Thread[4];
+        for (int rr = 0; rr < readers.length; rr++) {
+            readers[rr] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (registered.get() < count && failure.get() == null) {
+                        int visible = registered.get();
+                        if (registry.getConverter(String.class, Integer.class) == null) {
+                            failure.compareAndSet(null, "String to Integer missed");
+                        }
+                        for (int ii = 0; ii < visible; ii++) {
+                            if (registry.getConverter(Marker.class, types[ii]) != converter) {
+                                failure.compareAndSet(null, "registration " + ii + " missed");
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.start();
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        for (int ii = 0; ii < count; ii++) {
+            assertSame(converter, registry.getConverter(Marker.class, types[ii]));
+        }
+    }
+
+    /**
+     * Type only converted by the tests.
+     */
+    private static final class Marker {
+    }
 }
@@ -19,6 +19,7 @@ import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -147,4 +148,29 @@ public class NumberConvertersTest {
         }
         Assert.assertTrue(exception);
     }
+
+    @Test
+    public void testConvertMatrix() {
+        System.out.println("convert: number matrix");
+        Number[] values = new Number[]{Double.valueOf(42.9), Float.valueOf(42.9f), Integer.valueOf(42),
+            Long.valueOf(42), Short.valueOf((short) 42), Byte.valueOf((byte) 42)};
+        Number[] expected = new Number[]{Double.valueOf(42), Float.valueOf(42), Integer.valueOf(42),
+            Long.valueOf(42), Short.valueOf((short) 42), Byte.valueOf((byte) 42)};
+        for (Number value : values) {
+            for (Number target : expected) {
+                Converter lookup = ConverterRegistry.instance().getConverter(value.getClass(), target.getClass());
+                Object result = lookup.convert(target.getClass(), value);
+                assertEquals(target.getClass(), result.getClass());
+                assertEquals(target.longValue(), ((Number) result).longValue());
+            }
+            assertSame(value, ConverterRegistry.instance().convert(Number.class, value));
+        }
+        assertEquals(Double.valueOf(42.9f), ConverterRegistry.instance().convert(Double.class, Float.valueOf(42.9f)));
+        assertEquals(Byte.valueOf((byte) -42), ConverterRegistry.instance().convert(Byte.class, "-42"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testConvertInvalidString() {
+        ConverterRegistry.instance().convert(Long.class, "4x2");
+    }
 }
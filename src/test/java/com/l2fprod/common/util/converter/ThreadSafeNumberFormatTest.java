@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util.converter;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class ThreadSafeNumberFormatTest {
+
+    public ThreadSafeNumberFormatTest() {
+    }
+
+    private static NumberFormat createFormat(Locale locale) {
+        NumberFormat format = NumberFormat.getNumberInstance(locale);
+        format.setMinimumIntegerDigits(1);
+        format.setMaximumIntegerDigits(64);
+        format.setMinimumFractionDigits(0);
+        format.setMaximumFractionDigits(64);
+        return format;
+    }
+
+    /**
+     * Test of format method, of class ThreadSafeNumberFormat.
+     */
+    @Test
+    public void testSameOutput() {
+        System.out.println("format: same output");
+        Locale[] locales = new Locale[]{Locale.getDefault(), Locale.US, Locale.GERMANY, Locale.FRANCE,
+            new Locale("de", "CH"), new Locale("hi", "IN"), new Locale("ar", "EG"), new Locale("th", "TH", "TH")};
+        Random random = new Random(7);
+        for (Locale locale : locales) {
+            NumberFormat expected = createFormat(locale);
+            ThreadSafeNumberFormat format = new ThreadSafeNumberFormat(expected);
+            long[] longs = new long[]{0, 1, -1, 999, 1000, -1000, Long.MAX_VALUE, Long.MIN_VALUE};
+            for (long value : longs) {
+                assertEquals(expected.format(value), format.format(value));
+            }
+            double[] doubles = new double[]{0, -0d, 0.5, -1.25, 1e15, 9007199254740993d, 1e300, 1e-70,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE};
+            for (double value : doubles) {
+                assertEquals(expected.format(value), format.format(value));
+            }
+            for (int ii = 0; ii < 1000; ii++) {
+                long value = random.nextLong() >> random.nextInt(64);
+                assertEquals(expected.format(value), format.format(value));
+                double d = (double) (random.nextLong() >> random.nextInt(64));
+                assertEquals(expected.format(d), format.format(d));
+                d = random.nextGaussian() * 1000;
+                assertEquals(expected.format(d), format.appendTo(new StringBuilder(), d).toString());
+            }
+        }
+    }
+
+    /**
+     * Format from many threads with the same instance.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentFormat() throws Exception {
+        System.out.println("format: concurrent");
+        final NumberFormat prototype = createFormat(Locale.getDefault());
+        final ThreadSafeNumberFormat format = new ThreadSafeNumberFormat(prototype);
+        final NumberConverters converters = new NumberConverters(prototype);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int task = 0; task < 8; task++) {
+                final long seed = task;
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        NumberFormat expected = (NumberFormat) prototype.clone();
+                        Random random = new Random(seed);
+                        int count = 0;
+                        for (int ii = 0; ii < 20000; ii++) {
+                            double d = random.nextGaussian() * Math.pow(10, random.nextInt(20));
+                            long l = random.nextLong() >> random.nextInt(64);
+                            if (expected.format(d).equals(format.format(d))
+                                    && expected.format(l).equals(format.format(l))
+                                    && expected.format(d).equals(converters.convert(String.class, d))) {
+                                count++;
+                            }
+                        }
+                        return count;
+                    }
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(Integer.valueOf(20000), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 matta.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.l2fprod.common.util.index;
+
+import com.l2fprod.common.beans.editor.IntegerPropertyEditor;
+import com.l2fprod.common.propertysheet.PropertyEditorRegistry;
+import com.l2fprod.common.propertysheet.PropertyRendererRegistry;
+import com.l2fprod.common.swing.renderer.DefaultCellRenderer;
+import java.beans.PropertyEditor;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.table.TableCellRenderer;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author matta
+ */
+public class RegistryIndexTest {
+
+    public RegistryIndexTest() {
+    }
+
+    /**
+     * Test of load method, of class RegistryIndex.
+     *
+     * @throws ClassNotFoundException
+     */
+    @Test
+    public void testLoad() throws ClassNotFoundException {
+        System.out.println("load");
+        ClassLoader loader = RegistryIndex.getDefaultClassLoader();
+        RegistryIndex index = RegistryIndex.load(PropertyEditor.class, loader);
+        assertFalse(index.isEmpty());
+        String provider = IntegerPropertyEditor.class.getName();
+        assertTrue(index.contains(provider));
+        List<String> types = Arrays.asList(index.getTypes(provider));
+        assertTrue(types.contains("java.lang.Integer"));
+        assertTrue(types.contains("int"));
+        assertSame(int.class, RegistryIndex.loadType("int", loader));
+        assertSame(Integer.class, RegistryIndex.loadType("java.lang.Integer", loader));
+        assertEquals(0, index.getTypes(RegistryIndexTest.class.getName()).length);
+
+        List<String> providers = RegistryIndex.getServiceProviders(TableCellRenderer.class, loader);
+        assertTrue(providers.contains(DefaultCellRenderer.class.getName()));
+        assertTrue(RegistryIndex.load(TableCellRenderer.class, loader).contains(DefaultCellRenderer.class.getName()));
+    }
+
+    /**
+     * Indexed providers are resolved on first lookup.
+     */
+    @Test
+    public void testRegistries() {
+        System.out.println("registries");
+        assertTrue(PropertyEditorRegistry.INSTANCE.getEditor(int.class) instanceof IntegerPropertyEditor);
+        PropertyRendererRegistry renderers = new PropertyRendererRegistry();
+        TableCellRenderer renderer = renderers.getRenderer(Integer.class);
+        assertTrue(renderer instanceof DefaultCellRenderer);
+        assertSame(renderer, renderers.getRenderer(long.class));
+        assertNull(renderers.getRenderer(RegistryIndexTest.class));
+    }
+
+    /**
+     * Test of format method, of class RegistryIndex.
+     */
+    @Test
+    public void testFormat() {
+        System.out.println("format");
+        assertEquals("a.B=int,[I", RegistryIndex.format("a.B", Arrays.asList("int", "[I")));
+        assertEquals("a.B=", RegistryIndex.format("a.B", Arrays.<String>asList()));
+    }
+}